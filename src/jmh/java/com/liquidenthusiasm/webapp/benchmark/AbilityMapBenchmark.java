@@ -0,0 +1,72 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.model.AbilityMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures relationship lookups in an {@link AbilityMap} where a fraction of all ability pairs have a relationship.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbilityMapBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"10", "100", "1000"})
+    int abilityCount;
+
+    @Param({"0.1", "1.0"})
+    double density;
+
+    private AbilityMap abilityMap;
+    private String[] left;
+    private String[] right;
+    private int[] leftIds;
+    private int[] rightIds;
+    private int[] relationships;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] abilities = Scenarios.names("ability", abilityCount);
+        abilityMap = new AbilityMap();
+        for (int i = 0; i < abilityCount; i++) {
+            for (int j = i + 1; j < abilityCount; j++) {
+                if (random.nextDouble() < density) {
+                    abilityMap.addRelationship(abilities[i], abilities[j], random.nextInt(21) - 10);
+                }
+            }
+        }
+        left = new String[QUERIES];
+        right = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            left[i] = abilities[random.nextInt(abilityCount)];
+            right[i] = abilities[random.nextInt(abilityCount)];
+        }
+        leftIds = abilityMap.abilityIds(left);
+        rightIds = abilityMap.abilityIds(right);
+        relationships = new int[QUERIES];
+    }
+
+    @Benchmark
+    public int getRelationship() {
+        int i = next++ & (QUERIES - 1);
+        return abilityMap.getRelationship(left[i], right[i]);
+    }
+
+    /**
+     * Resolves every query pair in one call, by id; divide by {@link #QUERIES} to compare with single lookups.
+     */
+    @Benchmark
+    public int[] getRelationshipsInBulk() {
+        abilityMap.getRelationships(leftIds, rightIds, relationships);
+        return relationships;
+    }
+}
@@ -0,0 +1,65 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures logging a performed action, from one thread and from several threads sharing the global logger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionLoggerBenchmark {
+    @Param({"1", "100", "10000"})
+    int actorCount;
+
+    @Param({"1", "50"})
+    int actionCount;
+
+    private Actor[] actors;
+    private Action[] actions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ActionLogger.logger.actionDebuggingOn = false;
+        actors = new Actor[actorCount];
+        for (int i = 0; i < actorCount; i++) {
+            actors[i] = new Actor("actor" + i);
+        }
+        actions = new Action[actionCount];
+        for (int i = 0; i < actionCount; i++) {
+            actions[i] = new MotivatedAction("action" + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearLog() {
+        ActionLogger.logger.clear();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void log(Cursor cursor) {
+        int i = cursor.next++;
+        ActionLogger.logger.log(actors[i % actors.length], actions[i % actions.length]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void logContended(Cursor cursor) {
+        int i = cursor.next++;
+        ActionLogger.logger.log(actors[i % actors.length], actions[i % actions.length]);
+    }
+}
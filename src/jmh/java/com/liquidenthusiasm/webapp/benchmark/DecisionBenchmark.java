@@ -0,0 +1,79 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long an actor takes to pick its next action, for different numbers of actions, items and motives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionBenchmark {
+    private static final Motive[] MOTIVES = Scenarios.motives(64);
+
+    @Param({"4", "32", "256"})
+    int actionCount;
+
+    @Param({"0", "16", "128"})
+    int itemCount;
+
+    @Param({"4", "16", "64"})
+    int motiveCount;
+
+    private Actor actor;
+    private Item item;
+    private Motive changingMotive;
+    private double change = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ActionLogger.logger.actionDebuggingOn = false;
+        Random random = new Random(42);
+        actor = new Actor("benchmark");
+        for (int i = 0; i < motiveCount; i++) {
+            actor.registerDesire(MOTIVES[i], -50, 0, 50);
+            actor.addMotive(MOTIVES[i], random.nextInt(80) - 40);
+        }
+        for (int i = 0; i < actionCount; i++) {
+            actor.addAction(Scenarios.randomAction("action" + i, MOTIVES, motiveCount, random));
+        }
+        for (int i = 0; i < itemCount; i++) {
+            item = new Item("item" + i);
+            item.addAction(Scenarios.randomAction("use item" + i, MOTIVES, motiveCount, random));
+            actor.addItem(item);
+        }
+        changingMotive = MOTIVES[0];
+    }
+
+    @Benchmark
+    public Action considerNextAction() {
+        return actor.considerNextAction();
+    }
+
+    /**
+     * Changes one motive before every decision, so cached utilities for actions touching it have to be recomputed.
+     */
+    @Benchmark
+    public Action considerNextActionAfterMotiveChange() {
+        change = -change;
+        actor.addMotive(changingMotive, change);
+        return actor.considerNextAction();
+    }
+
+    @Benchmark
+    public List<Action> itemGetActions() {
+        return item == null ? null : item.getActions(actor);
+    }
+}
@@ -0,0 +1,48 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.jsp.EscapeXml;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures escaping strings of different lengths, with and without characters that need escaping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeXmlBenchmark {
+    private static final String PLAIN = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789";
+    private static final String MARKUP = "<>&'\"";
+
+    @Param({"16", "256", "4096"})
+    int length;
+
+    @Param({"0.0", "0.05", "0.5"})
+    double markupFraction;
+
+    private String source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            if (random.nextDouble() < markupFraction) {
+                sb.append(MARKUP.charAt(random.nextInt(MARKUP.length())));
+            } else {
+                sb.append(PLAIN.charAt(random.nextInt(PLAIN.length())));
+            }
+        }
+        source = sb.toString();
+    }
+
+    @Benchmark
+    public String escape() {
+        return EscapeXml.escape(source);
+    }
+}
@@ -0,0 +1,47 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.util.Maxinator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures picking the best element of a population with {@link Maxinator}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaxinatorBenchmark {
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    private List<Double> population;
+    private double[] primitivePopulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        population = new ArrayList<>(size);
+        primitivePopulation = new double[size];
+        for (int i = 0; i < size; i++) {
+            primitivePopulation[i] = random.nextDouble();
+            population.add(primitivePopulation[i]);
+        }
+    }
+
+    @Benchmark
+    public Double getBest() {
+        return Maxinator.getBest(value -> value, population.stream());
+    }
+
+    @Benchmark
+    public int getBestPrimitive() {
+        return Maxinator.getBest(primitivePopulation, value -> value);
+    }
+}
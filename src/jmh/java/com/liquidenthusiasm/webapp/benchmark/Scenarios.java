@@ -0,0 +1,47 @@
+package com.liquidenthusiasm.webapp.benchmark;
+
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+
+import java.util.Random;
+
+/**
+ * Builders for the randomised scenarios the benchmarks run against. Every builder takes its own seeded
+ * {@link Random} so a scenario is the same from run to run.
+ */
+final class Scenarios {
+    private Scenarios() {
+    }
+
+    /**
+     * Motives are registered for the lifetime of the JVM, so benchmarks share one set rather than creating new
+     * motives for every parameter combination.
+     */
+    static Motive[] motives(int count) {
+        Motive[] motives = new Motive[count];
+        for (int i = 0; i < count; i++) {
+            motives[i] = new Motive("benchmark motive " + i).min(-100).max(100);
+        }
+        return motives;
+    }
+
+    /**
+     * @return an action changing between one and three of the first {@code motiveCount} motives
+     */
+    static MotivatedAction randomAction(String name, Motive[] motives, int motiveCount, Random random) {
+        MotivatedAction action = new MotivatedAction(name);
+        int changes = 1 + random.nextInt(3);
+        for (int i = 0; i < changes; i++) {
+            action.motive(motives[random.nextInt(motiveCount)], random.nextInt(21) - 10);
+        }
+        return action;
+    }
+
+    static String[] names(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+}
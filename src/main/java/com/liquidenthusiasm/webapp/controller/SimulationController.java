@@ -0,0 +1,329 @@
+package com.liquidenthusiasm.webapp.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.liquidenthusiasm.webapp.model.Simulation;
+import com.liquidenthusiasm.webapp.model.TickFrame;
+import com.liquidenthusiasm.webapp.model.WorldFeed;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the live state of a running simulation to browsers, one JSON {@link TickFrame} per tick.
+ * <p>
+ * Frames are sent as server-sent events by default, or as newline-delimited JSON over a plain chunked response
+ * with {@code format=ndjson}. Each frame is written straight to the response by a streaming generator. A client
+ * that reads slower than the world ticks only ever gets the newest frame; the frames it missed are counted in the
+ * {@code droppedFrames} field of the next one it gets. Streams are written asynchronously, and only so many may
+ * be open at once; see {@link #setMaxStreams(int)}.
+ * <p>
+ * The simulation is the one configured in the application context, which by default runs a
+ * {@link com.liquidenthusiasm.webapp.model.sandbox.SampleWorld}. Without one, every request is answered with 503
+ * Service Unavailable. Starting and stopping it changes what everyone sees, so those live under {@code /admin} and
+ * are only open to administrators.
+ */
+@Controller
+public class SimulationController {
+    public static final String FORMAT_SSE = "sse";
+    public static final String FORMAT_NDJSON = "ndjson";
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final int WRITER_THREADS = 4;
+    private static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SSE_END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SSE_KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.US_ASCII);
+
+    private transient final Log log = LogFactory.getLog(SimulationController.class);
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ScheduledExecutorService writers = Executors.newScheduledThreadPool(WRITER_THREADS, r -> {
+        Thread thread = new Thread(r, "simulation-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Stream> streams = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private volatile Simulation simulation;
+    private volatile int maxStreams = 100;
+
+    @Autowired(required = false)
+    public void setSimulation(Simulation simulation) {
+        this.simulation = simulation;
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    @RequestMapping(value = "/admin/simulation/start", method = RequestMethod.POST)
+    public void start(@RequestParam(required = false, defaultValue = "100", value = "tickMillis") long tickMillis,
+                      HttpServletResponse response) throws IOException {
+        Simulation simulation = configuredSimulation(response);
+        if (simulation != null) {
+            simulation.start(tickMillis, TimeUnit.MILLISECONDS);
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        }
+    }
+
+    @RequestMapping(value = "/admin/simulation/stop", method = RequestMethod.POST)
+    public void stop(HttpServletResponse response) throws IOException {
+        Simulation simulation = configuredSimulation(response);
+        if (simulation != null) {
+            simulation.stop();
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        }
+    }
+
+    /**
+     * Sends frames until the client goes away, or until {@code maxFrames} have been sent if that is given. The
+     * response is written from the controller's own threads as frames come in, so an open stream doesn't hold on
+     * to a request thread.
+     */
+    @RequestMapping(value = "/simulation/stream", method = RequestMethod.GET)
+    public void stream(@RequestParam(required = false, defaultValue = FORMAT_SSE, value = "format") String format,
+                       @RequestParam(required = false, defaultValue = "0", value = "maxFrames") long maxFrames,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean sse = FORMAT_SSE.equals(format);
+        if (!sse && !FORMAT_NDJSON.equals(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown stream format: " + format);
+            return;
+        }
+        Simulation simulation = configuredSimulation(response);
+        if (simulation == null) {
+            return;
+        }
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many simulation streams are open");
+            return;
+        }
+        try {
+            response.setContentType(sse ? "text/event-stream" : "application/x-ndjson");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Cache-Control", "no-cache");
+            OutputStream out = response.getOutputStream();
+            // commit the headers here, while the request's security context is still around to be saved
+            response.flushBuffer();
+            AsyncContext async = request.startAsync(request, response);
+            async.setTimeout(0);
+            new Stream(async, out, sse, maxFrames).start(simulation.getFeed());
+        } catch (IOException | RuntimeException e) {
+            openStreams.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * @return how many streams are being sent right now
+     */
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    /**
+     * Sets how many streams may be open at once. Clients asking for more are answered with 503 Service Unavailable.
+     */
+    public SimulationController setMaxStreams(int maxStreams) {
+        if (maxStreams < 0) {
+            throw new IllegalArgumentException("Maximum number of streams can not be negative, but got " + maxStreams);
+        }
+        this.maxStreams = maxStreams;
+        return this;
+    }
+
+    /**
+     * Ends every open stream.
+     */
+    @PreDestroy
+    public void close() {
+        for (Stream stream : streams) {
+            stream.finish();
+        }
+        writers.shutdown();
+    }
+
+    /**
+     * @return the configured simulation, or null having answered with 503 if there is none
+     */
+    private Simulation configuredSimulation(HttpServletResponse response) throws IOException {
+        Simulation configured = simulation;
+        if (configured == null) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No simulation is configured");
+        }
+        return configured;
+    }
+
+    /**
+     * Writes one client's frames. Frames are written on the writer threads, one at a time, whenever the feed offers
+     * one; a keep-alive goes out instead when no frame has been written for a while.
+     */
+    private final class Stream implements Runnable, AsyncListener {
+        private final AsyncContext async;
+        private final OutputStream out;
+        private final JsonGenerator json;
+        private final boolean sse;
+        private final long maxFrames;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile WorldFeed.Subscription subscription;
+        private ScheduledFuture<?> keepAlive;
+        private boolean idle = true;
+        private long sent = 0;
+
+        private Stream(AsyncContext async, OutputStream out, boolean sse, long maxFrames) throws IOException {
+            this.async = async;
+            this.out = out;
+            this.sse = sse;
+            this.maxFrames = maxFrames;
+            json = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        }
+
+        private void start(WorldFeed feed) {
+            streams.add(this);
+            async.addListener(this);
+            subscription = feed.subscribe(this::schedule);
+            synchronized (this) {
+                keepAlive = writers.scheduleWithFixedDelay(this::keepAlive, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS);
+            }
+            // send the frame the subscription started with, and any offered before it was assigned
+            schedule();
+        }
+
+        private void schedule() {
+            if (subscription != null && !finished.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    finish();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            scheduled.set(false);
+            TickFrame frame = subscription.poll();
+            if (frame != null) {
+                write(frame);
+            }
+        }
+
+        private synchronized void write(TickFrame frame) {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                if (sse) {
+                    out.write(SSE_DATA);
+                }
+                frame.writeTo(json, subscription.getDroppedFrames());
+                json.flush();
+                out.write(sse ? SSE_END : NEWLINE);
+                out.flush();
+                idle = false;
+                if (maxFrames > 0 && ++sent >= maxFrames) {
+                    finish();
+                }
+            } catch (IOException e) {
+                closedByClient(e);
+            }
+        }
+
+        private synchronized void keepAlive() {
+            if (finished.get()) {
+                return;
+            }
+            if (!idle) {
+                idle = true;
+                return;
+            }
+            try {
+                out.write(sse ? SSE_KEEP_ALIVE : NEWLINE);
+                out.flush();
+            } catch (IOException e) {
+                closedByClient(e);
+            }
+        }
+
+        private void closedByClient(IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Simulation stream closed by the client: " + e.getMessage());
+            }
+            finish();
+        }
+
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            WorldFeed.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.close();
+            }
+            synchronized (this) {
+                if (keepAlive != null) {
+                    keepAlive.cancel(false);
+                }
+            }
+            streams.remove(this);
+            openStreams.decrementAndGet();
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // the container has already ended the request
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finish();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // a stream is only ever started once
+        }
+    }
+}
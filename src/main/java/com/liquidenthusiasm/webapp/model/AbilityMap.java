@@ -1,21 +1,84 @@
 package com.liquidenthusiasm.webapp.model;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.apache.logging.log4j.util.Strings;
 
 import java.util.*;
 
-@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+/**
+ * How strong each ability is against each other one. Read and written as JSON by {@link AbilityMapJson}.
+ * <p>
+ * Ability names are interned to small int ids, in the order they are first related, and relationships are kept
+ * in an int matrix over those ids, so a lookup by id never compares or hashes strings and never boxes. Only one
+ * triangle of the matrix is stored, since the relationship of b to a is always minus that of a to b. While few
+ * pairs are related, the triangle is a sparse open-addressing table keyed by the pair; once enough of it is
+ * filled that a flat array would be no bigger, it becomes a dense triangular array.
+ * <p>
+ * For resolving many pairs at once, look the names up with {@link #abilityIds(String[])} and pass the ids to
+ * {@link #getRelationships(int[], int[], int[])}. Not thread safe while relationships are being added; to edit a
+ * map that other threads are reading, share it as a {@link VersionedAbilityMap}.
+ */
+@JsonSerialize(using = AbilityMapJson.Serializer.class)
+@JsonDeserialize(using = AbilityMapJson.Deserializer.class)
 public class AbilityMap {
-    Map<String, Map<String, Integer>> relationMap = new HashMap<>();
-    @JsonIgnore
-    Set<String> abilityList = new HashSet<>();
+    public static final int NO_ABILITY = -1;
+    /** a dense cell costs 4 bytes, a sparse entry 8 for its key and 4 for its value in a table kept at most half full */
+    private static final int SPARSE_ENTRY_CELLS = 6;
+    private static final int INITIAL_SPARSE_CAPACITY = 16;
+    private static final long EMPTY = -1L;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private int relationCount = 0;
+
+    private long[] sparseKeys = newKeys(INITIAL_SPARSE_CAPACITY);
+    private int[] sparseValues = new int[INITIAL_SPARSE_CAPACITY];
+    /** the triangle j >= i, at j * (j + 1) / 2 + i, once dense; null while sparse */
+    private int[] dense;
+    private long[] denseRelated;
+    private boolean frozen = false;
+
+    public AbilityMap() {
+    }
+
+    private AbilityMap(AbilityMap original) {
+        ids.putAll(original.ids);
+        names.addAll(original.names);
+        relationCount = original.relationCount;
+        if (original.dense != null) {
+            dense = original.dense.clone();
+            denseRelated = original.denseRelated.clone();
+            sparseKeys = null;
+            sparseValues = null;
+        } else {
+            sparseKeys = original.sparseKeys.clone();
+            sparseValues = original.sparseValues.clone();
+        }
+    }
+
+    /**
+     * Stops the map from ever being changed again, as it is published in an {@link AbilityMapSnapshot}.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return a copy of this map, which can be changed without changing this one, even if this one can't be
+     */
+    public AbilityMap copy() {
+        return new AbilityMap(this);
+    }
 
     public void addRelationship(String ability1, String ability2, int relativePower) {
         relationship(ability1, ability2, relativePower);
     }
 
+    /**
+     * Relates the abilities in name order: afterwards the relationship of whichever name sorts first to the
+     * other is the given power, whatever order they were passed in.
+     */
     private void relationship(String ability1, String ability2, int relativePower) {
         if (Strings.isBlank(ability1) || Strings.isBlank(ability2)) {
             throw new IllegalArgumentException(String.format("Relationships may not involve null/blank relationships: %s vs %s", ability1, ability2));
@@ -25,37 +88,313 @@ public class AbilityMap {
             ability1 = ability2;
             ability2 = tmp;
         }
-        if (!relationMap.containsKey(ability1)) {
-            relationMap.put(ability1, new HashMap<String, Integer>());
+        setRelationship(ability1, ability2, relativePower);
+    }
+
+    /**
+     * Sets the relationship of the first ability to the second, so that {@link #getRelationship(String, String)}
+     * gives exactly this power for them, and minus it the other way around.
+     */
+    public void setRelationship(String ability1, String ability2, int relativePower) {
+        if (frozen) {
+            throw new IllegalStateException(String.format("Can't relate %s to %s in a published ability map; edit it through its VersionedAbilityMap",
+                    ability1, ability2));
+        }
+        if (Strings.isBlank(ability1) || Strings.isBlank(ability2)) {
+            throw new IllegalArgumentException(String.format("Relationships may not involve null/blank relationships: %s vs %s", ability1, ability2));
+        }
+        int id1 = intern(ability1);
+        int id2 = intern(ability2);
+        if (id1 <= id2) {
+            put(id1, id2, relativePower);
+        } else {
+            put(id2, id1, -relativePower);
         }
-        relationMap.get(ability1).put(ability2, relativePower);
-        abilityList.add(ability1);
-        abilityList.add(ability2);
     }
 
-    @JsonIgnore
+    /**
+     * @return the names of every ability with a relationship, in id order
+     */
     public Collection<String> getAbilityList() {
-        return abilityList;
+        return Collections.unmodifiableList(names);
+    }
+
+    public int getAbilityCount() {
+        return names.size();
+    }
+
+    public int getRelationshipCount() {
+        return relationCount;
+    }
+
+    /**
+     * @return the id of the named ability, or {@link #NO_ABILITY} if it has no relationships
+     */
+    public int abilityId(String ability) {
+        Integer id = ability == null ? null : ids.get(ability);
+        return id == null ? NO_ABILITY : id;
+    }
+
+    /**
+     * @return the ids of the named abilities, with {@link #NO_ABILITY} for any without relationships
+     */
+    public int[] abilityIds(String[] abilities) {
+        int[] result = new int[abilities.length];
+        for (int i = 0; i < abilities.length; i++) {
+            result[i] = abilityId(abilities[i]);
+        }
+        return result;
+    }
+
+    public String abilityName(int id) {
+        if (id < 0 || id >= names.size()) {
+            throw new IndexOutOfBoundsException("Ability " + id + " is not one of " + names.size());
+        }
+        return names.get(id);
+    }
+
+    /**
+     * @return true if the relationships are held in a dense triangular array rather than a sparse table
+     */
+    public boolean isDense() {
+        return dense != null;
     }
 
     public int getRelationship(String ability1, String ability2) {
-        int multiplier = 1;
         if (ability1 == null || ability2 == null) {
             return 0;
         }
-        if (ability1.compareTo(ability2) > 0) {
-            String tmp = ability1;
-            ability1 = ability2;
-            ability2 = tmp;
-            multiplier = -1;
-        }
-        if (!relationMap.containsKey(ability1)) {
+        return getRelationship(abilityId(ability1), abilityId(ability2));
+    }
+
+    /**
+     * @return the relationship of the first ability to the second, or 0 if either is not the id of an ability in
+     * this map, such as {@link #NO_ABILITY}
+     */
+    public int getRelationship(int id1, int id2) {
+        if (!isAbility(id1) || !isAbility(id2)) {
             return 0;
         }
-        Map<String, Integer> ability1Map = relationMap.get(ability1);
-        if (!ability1Map.containsKey(ability2)) {
-            return 0;
+        return id1 <= id2 ? get(id1, id2) : -get(id2, id1);
+    }
+
+    /**
+     * Looks up the relationship of {@code first[i]} to {@code second[i]} for every i, as
+     * {@link #getRelationship(int, int)} would, so any id that isn't one of this map's abilities relates as 0.
+     *
+     * @param out where to put the relationships; must be at least as long as the ids
+     */
+    public void getRelationships(int[] first, int[] second, int[] out) {
+        if (first.length != second.length || out.length < first.length) {
+            throw new IllegalArgumentException(String.format("Can't look up %d by %d relationships into room for %d",
+                    first.length, second.length, out.length));
+        }
+        int[] cells = dense;
+        for (int i = 0; i < first.length; i++) {
+            int a = first[i];
+            int b = second[i];
+            if (!isAbility(a) || !isAbility(b)) {
+                out[i] = 0;
+            } else if (cells != null) {
+                out[i] = a <= b ? cells[cell(a, b)] : -cells[cell(b, a)];
+            } else {
+                out[i] = a <= b ? sparseGet(a, b) : -sparseGet(b, a);
+            }
+        }
+    }
+
+    /**
+     * @return the relationship of {@code first[i]} to {@code second[i]} for every i
+     */
+    public int[] getRelationships(String[] first, String[] second) {
+        int[] out = new int[first.length];
+        getRelationships(abilityIds(first), abilityIds(second), out);
+        return out;
+    }
+
+    public interface RelationshipVisitor {
+        void visit(int id1, int id2, int relativePower);
+    }
+
+    /**
+     * Visits every relationship once, with the lower id first, giving the relationship of that ability to the other.
+     */
+    public void forEachRelationship(RelationshipVisitor visitor) {
+        if (dense != null) {
+            for (int j = 0; j < names.size(); j++) {
+                for (int i = 0; i <= j; i++) {
+                    int cell = cell(i, j);
+                    if ((denseRelated[cell >>> 6] & (1L << cell)) != 0) {
+                        visitor.visit(i, j, dense[cell]);
+                    }
+                }
+            }
+        } else {
+            for (int slot = 0; slot < sparseKeys.length; slot++) {
+                long key = sparseKeys[slot];
+                if (key != EMPTY) {
+                    visitor.visit((int) (key >>> 32), (int) key, sparseValues[slot]);
+                }
+            }
+        }
+    }
+
+    private boolean isAbility(int id) {
+        return id >= 0 && id < names.size();
+    }
+
+    /**
+     * @return the ability's id, giving it the next one if it doesn't have one yet. Lets a reader give every ability
+     * the id it was written with before relating any of them.
+     */
+    int intern(String ability) {
+        Integer id = ids.get(ability);
+        if (id == null) {
+            id = names.size();
+            ids.put(ability, id);
+            names.add(ability);
+            if (dense != null) {
+                int cells = cellCount(names.size());
+                if ((long) relationCount * SPARSE_ENTRY_CELLS * 2 < cells) {
+                    sparsify();
+                } else {
+                    dense = Arrays.copyOf(dense, cells);
+                    denseRelated = Arrays.copyOf(denseRelated, (cells + 63) >>> 6);
+                }
+            }
+        }
+        return id;
+    }
+
+    private static int cell(int i, int j) {
+        return (int) ((long) j * (j + 1) / 2 + i);
+    }
+
+    private static int cellCount(int abilities) {
+        long cells = (long) abilities * (abilities + 1) / 2;
+        return cells > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) cells;
+    }
+
+    private int get(int i, int j) {
+        return dense != null ? dense[cell(i, j)] : sparseGet(i, j);
+    }
+
+    private void put(int i, int j, int relativePower) {
+        if (dense != null) {
+            int cell = cell(i, j);
+            long bit = 1L << cell;
+            if ((denseRelated[cell >>> 6] & bit) == 0) {
+                denseRelated[cell >>> 6] |= bit;
+                relationCount++;
+            }
+            dense[cell] = relativePower;
+            return;
+        }
+        if (sparsePut(key(i, j), relativePower)) {
+            relationCount++;
+            if ((long) relationCount * SPARSE_ENTRY_CELLS >= cellCount(names.size())) {
+                densify();
+            } else if (relationCount * 2 > sparseKeys.length) {
+                resize(sparseKeys.length * 2);
+            }
+        }
+    }
+
+    private void densify() {
+        int cells = cellCount(names.size());
+        dense = new int[cells];
+        denseRelated = new long[(cells + 63) >>> 6];
+        for (int slot = 0; slot < sparseKeys.length; slot++) {
+            long key = sparseKeys[slot];
+            if (key != EMPTY) {
+                int cell = cell((int) (key >>> 32), (int) key);
+                dense[cell] = sparseValues[slot];
+                denseRelated[cell >>> 6] |= 1L << cell;
+            }
+        }
+        sparseKeys = null;
+        sparseValues = null;
+    }
+
+    /**
+     * Goes back to a sparse table once new abilities have left the triangle less than half as full as it was
+     * when it became dense, so a few related pairs among very many abilities can't take a huge array.
+     */
+    private void sparsify() {
+        int capacity = INITIAL_SPARSE_CAPACITY;
+        while (capacity < relationCount * 2) {
+            capacity <<= 1;
+        }
+        sparseKeys = newKeys(capacity);
+        sparseValues = new int[capacity];
+        int[] cells = dense;
+        long[] related = denseRelated;
+        dense = null;
+        denseRelated = null;
+        for (int j = 0; j < names.size() - 1; j++) {
+            for (int i = 0; i <= j; i++) {
+                int cell = cell(i, j);
+                if ((related[cell >>> 6] & (1L << cell)) != 0) {
+                    sparsePut(key(i, j), cells[cell]);
+                }
+            }
+        }
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | (j & 0xFFFFFFFFL);
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int sparseGet(int i, int j) {
+        long key = key(i, j);
+        long[] keys = sparseKeys;
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long found = keys[slot];
+            if (found == key) {
+                return sparseValues[slot];
+            }
+            if (found == EMPTY) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return true if the pair was not related before
+     */
+    private boolean sparsePut(long key, int value) {
+        int mask = sparseKeys.length - 1;
+        int slot = slot(key, mask);
+        while (sparseKeys[slot] != EMPTY && sparseKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        boolean added = sparseKeys[slot] == EMPTY;
+        sparseKeys[slot] = key;
+        sparseValues[slot] = value;
+        return added;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = sparseKeys;
+        int[] oldValues = sparseValues;
+        sparseKeys = newKeys(capacity);
+        sparseValues = new int[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                sparsePut(oldKeys[slot], oldValues[slot]);
+            }
         }
-        return ability1Map.get(ability2) * multiplier;
     }
 }
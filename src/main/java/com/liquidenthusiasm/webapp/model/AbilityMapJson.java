@@ -0,0 +1,131 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.apache.logging.log4j.util.Strings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes an {@link AbilityMap} as a table of ability names and a flat array of relationships between them, and
+ * reads it back a token at a time:
+ * <pre>
+ * {"abilities": ["fire", "water"], "relations": [0, 1, 5, ...]}
+ * </pre>
+ * where each relationship is (ability, ability, relative power of the first to the second), the abilities being
+ * indexes into the names, which come first. Abilities keep the ids they were written with, so a map reads back
+ * with the same {@link AbilityMap#getAbilityList()} it was written with.
+ */
+public final class AbilityMapJson {
+    private AbilityMapJson() {
+    }
+
+    public static void write(AbilityMap map, JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeArrayFieldStart("abilities");
+        for (String name : map.getAbilityList()) {
+            json.writeString(name);
+        }
+        json.writeEndArray();
+        json.writeArrayFieldStart("relations");
+        try {
+            map.forEachRelationship((id1, id2, relativePower) -> {
+                try {
+                    json.writeNumber(id1);
+                    json.writeNumber(id2);
+                    json.writeNumber(relativePower);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Reads a map, starting at its {@link JsonToken#START_OBJECT} and finishing on its {@link JsonToken#END_OBJECT}.
+     * The abilities must come before the relations.
+     */
+    public static AbilityMap read(JsonParser json) throws IOException {
+        ActorJson.expect(json.getCurrentToken(), JsonToken.START_OBJECT, "an ability map");
+        AbilityMap map = new AbilityMap();
+        List<String> names = null;
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.getCurrentName();
+            JsonToken value = json.nextToken();
+            if ("abilities".equals(field)) {
+                ActorJson.expect(value, JsonToken.START_ARRAY, "an array of ability names");
+                names = new ArrayList<>();
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    String name = json.getValueAsString();
+                    if (Strings.isBlank(name)) {
+                        throw new IllegalArgumentException(String.format("Ability names may not be null/blank, but ability %d is", names.size()));
+                    }
+                    if (map.intern(name) != names.size()) {
+                        throw new IllegalArgumentException(String.format("Ability %s is listed more than once", name));
+                    }
+                    names.add(name);
+                }
+            } else if ("relations".equals(field)) {
+                ActorJson.expect(value, JsonToken.START_ARRAY, "an array of ability relations");
+                if (names == null) {
+                    throw new IllegalArgumentException("An ability map's abilities must come before its relations");
+                }
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    String first = ability(names, json.getIntValue());
+                    json.nextToken();
+                    String second = ability(names, json.getIntValue());
+                    json.nextToken();
+                    map.setRelationship(first, second, json.getIntValue());
+                }
+            } else {
+                json.skipChildren();
+            }
+        }
+        return map;
+    }
+
+    private static String ability(List<String> names, int id) {
+        if (id < 0 || id >= names.size()) {
+            throw new IllegalArgumentException(String.format("No ability has id %d, there are only %d", id, names.size()));
+        }
+        return names.get(id);
+    }
+
+    public static class Serializer extends StdSerializer<AbilityMap> {
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(AbilityMap.class);
+        }
+
+        @Override
+        public void serialize(AbilityMap map, JsonGenerator json, SerializerProvider provider) throws IOException {
+            write(map, json);
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<AbilityMap> {
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(AbilityMap.class);
+        }
+
+        @Override
+        public AbilityMap deserialize(JsonParser json, DeserializationContext context) throws IOException {
+            return read(json);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.liquidenthusiasm.webapp.model;
+
+import java.util.Collection;
+
+/**
+ * An unchangeable version of an {@link AbilityMap}, handed out by a {@link VersionedAbilityMap}. Any number of
+ * threads may read a snapshot at once without locking, since nothing ever changes it after it is published.
+ */
+public final class AbilityMapSnapshot {
+    private final AbilityMap map;
+    private final long version;
+
+    /**
+     * @param map a map nothing else holds, which is frozen so it can never be changed again
+     */
+    AbilityMapSnapshot(AbilityMap map, long version) {
+        map.freeze();
+        this.map = map;
+        this.version = version;
+    }
+
+    /**
+     * @return how many edits were published before this snapshot, so later snapshots have higher versions
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getRelationship(String ability1, String ability2) {
+        return map.getRelationship(ability1, ability2);
+    }
+
+    /**
+     * @see AbilityMap#getRelationship(int, int)
+     */
+    public int getRelationship(int id1, int id2) {
+        return map.getRelationship(id1, id2);
+    }
+
+    /**
+     * @see AbilityMap#getRelationships(int[], int[], int[])
+     */
+    public void getRelationships(int[] first, int[] second, int[] out) {
+        map.getRelationships(first, second, out);
+    }
+
+    public int[] getRelationships(String[] first, String[] second) {
+        return map.getRelationships(first, second);
+    }
+
+    /**
+     * @return the id of the named ability, or {@link AbilityMap#NO_ABILITY}; edits keep ids, so it stays the same in
+     * later snapshots unless the whole map is replaced
+     */
+    public int abilityId(String ability) {
+        return map.abilityId(ability);
+    }
+
+    public int[] abilityIds(String[] abilities) {
+        return map.abilityIds(abilities);
+    }
+
+    public String abilityName(int id) {
+        return map.abilityName(id);
+    }
+
+    public Collection<String> getAbilityList() {
+        return map.getAbilityList();
+    }
+
+    public int getRelationshipCount() {
+        return map.getRelationshipCount();
+    }
+
+    public void forEachRelationship(AbilityMap.RelationshipVisitor visitor) {
+        map.forEachRelationship(visitor);
+    }
+
+    /**
+     * @return this snapshot's map itself, for reading within the package without copying; it can't be changed
+     */
+    AbilityMap map() {
+        return map;
+    }
+
+    /**
+     * @return a changeable copy of this snapshot's map
+     */
+    public AbilityMap toAbilityMap() {
+        return map.copy();
+    }
+}
@@ -0,0 +1,226 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionDefinitions;
+import com.liquidenthusiasm.webapp.model.action.ActionProvider;
+import com.liquidenthusiasm.webapp.model.motive.Desire;
+import com.liquidenthusiasm.webapp.model.motive.MotiveTable;
+import com.liquidenthusiasm.webapp.model.motive.MotiveValues;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An actor's actions, and its items' actions, indexed by the motives they change.
+ * <p>
+ * An action's utility is the sum of how much closer it takes each motive it changes to the actor's ideal. For a
+ * motive that is already at its ideal, every change moves it away, so an action that only changes satisfied
+ * motives (or motives the actor has no desire for) can never score above zero and can never be chosen. The index
+ * lets the actor skip those actions without scoring them: {@link #gather} collects the actions that change at
+ * least one unsatisfied motive, plus every action whose motives can't be known ahead of time.
+ * <p>
+ * Providers are added and removed as the actor gains and loses items and actions. The whole index is rebuilt
+ * when {@link ActionDefinitions#version()} moves on. Not thread safe; each actor owns its own index.
+ */
+final class ActionIndex {
+    private static final Candidate[] NO_CANDIDATES = new Candidate[0];
+
+    private final Actor owner;
+    private final Map<ActionProvider, Candidate[]> byProvider = new HashMap<>();
+    private final List<Candidate> unindexed = new ArrayList<>();
+    private final List<List<Candidate>> byMotive = new ArrayList<>();
+    private long version = -1;
+    private long stamp = 0;
+    private Candidate[] gathered = NO_CANDIDATES;
+
+    ActionIndex(Actor owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return true if the index was built against the current action definitions
+     */
+    boolean isCurrent() {
+        return version == ActionDefinitions.version();
+    }
+
+    /**
+     * Empties the index, ready to be refilled against the current action definitions.
+     */
+    void clear() {
+        version = ActionDefinitions.version();
+        byProvider.clear();
+        unindexed.clear();
+        byMotive.clear();
+    }
+
+    /**
+     * Indexes every action the provider offers, replacing whatever was indexed for it before.
+     */
+    void add(ActionProvider provider) {
+        remove(provider);
+        Action[] actions = provider.getCandidateActions(owner);
+        if (actions == null) {
+            List<Action> list = provider.getActions(owner);
+            actions = list.toArray(new Action[list.size()]);
+        }
+        Candidate[] candidates = new Candidate[actions.length];
+        Source source = new Source(provider);
+        for (int i = 0; i < actions.length; i++) {
+            Action action = actions[i];
+            if (!action.hasStableMotives()) {
+                candidates[i] = new Candidate(source, action, null);
+                unindexed.add(candidates[i]);
+                continue;
+            }
+            MotiveVector changes = action.getExpectedMotiveVector(owner);
+            int[] motives = new int[changes.size()];
+            candidates[i] = new Candidate(source, action, motives);
+            for (int j = 0; j < motives.length; j++) {
+                motives[j] = changes.ordinal(j);
+                bucket(motives[j]).add(candidates[i]);
+            }
+        }
+        byProvider.put(provider, candidates);
+    }
+
+    /**
+     * Takes the provider's actions out of the index, touching only the buckets of the motives they change, and
+     * each of those once.
+     */
+    void remove(ActionProvider provider) {
+        Candidate[] candidates = byProvider.remove(provider);
+        if (candidates == null || candidates.length == 0) {
+            return;
+        }
+        Source source = candidates[0].source;
+        int[] cleared = new int[4];
+        int clearedCount = 0;
+        boolean anyUnindexed = false;
+        for (Candidate candidate : candidates) {
+            if (candidate.motives == null) {
+                anyUnindexed = true;
+                continue;
+            }
+            for (int ordinal : candidate.motives) {
+                if (indexOf(cleared, clearedCount, ordinal) < 0) {
+                    byMotive.get(ordinal).removeIf(c -> c.source == source);
+                    if (clearedCount == cleared.length) {
+                        cleared = Arrays.copyOf(cleared, clearedCount * 2);
+                    }
+                    cleared[clearedCount++] = ordinal;
+                }
+            }
+        }
+        if (anyUnindexed) {
+            unindexed.removeIf(c -> c.source == source);
+        }
+    }
+
+    private static int indexOf(int[] values, int count, int wanted) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == wanted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<Candidate> bucket(int ordinal) {
+        while (byMotive.size() <= ordinal) {
+            byMotive.add(null);
+        }
+        List<Candidate> bucket = byMotive.get(ordinal);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            byMotive.set(ordinal, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Collects every candidate that changes a motive whose value is not at its desired ideal, each once, plus every
+     * candidate that isn't indexed by motive. Read them back with {@link #gathered(int)}.
+     *
+     * @return the number of candidates collected
+     */
+    int gather(MotiveValues motives, MotiveTable<Desire> desires) {
+        stamp++;
+        int count = 0;
+        for (int i = 0; i < unindexed.size(); i++) {
+            count = push(count, unindexed.get(i));
+        }
+        int motiveCount = Math.min(byMotive.size(), desires.capacity());
+        for (int ordinal = 0; ordinal < motiveCount; ordinal++) {
+            List<Candidate> bucket = byMotive.get(ordinal);
+            if (bucket == null || bucket.isEmpty()) {
+                continue;
+            }
+            Desire desire = desires.get(ordinal);
+            if (desire == null || motives.get(ordinal, 0) == desire.getIdeal()) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                Candidate candidate = bucket.get(i);
+                if (candidate.stamp != stamp) {
+                    candidate.stamp = stamp;
+                    count = push(count, candidate);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int push(int count, Candidate candidate) {
+        if (count == gathered.length) {
+            gathered = Arrays.copyOf(gathered, Math.max(16, count * 2));
+        }
+        gathered[count] = candidate;
+        return count + 1;
+    }
+
+    Candidate gathered(int i) {
+        return gathered[i];
+    }
+
+    /**
+     * @return a number that changes on every call to {@link #gather}, for callers that remember things per decision
+     */
+    long stamp() {
+        return stamp;
+    }
+
+    /**
+     * A provider in the index, with room for the actor to remember its utility bound during one decision.
+     */
+    static final class Source {
+        final ActionProvider provider;
+        long boundStamp = -1;
+        double bound;
+        long skippedStamp = -1;
+
+        private Source(ActionProvider provider) {
+            this.provider = provider;
+        }
+    }
+
+    static final class Candidate {
+        final Source source;
+        final ActionProvider provider;
+        final Action action;
+        /** the ordinals of the motive buckets this candidate is in, or null if it isn't indexed by motive */
+        private final int[] motives;
+        private long stamp;
+
+        private Candidate(Source source, Action action, int[] motives) {
+            this.source = source;
+            this.provider = source.provider;
+            this.action = action;
+            this.motives = motives;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.liquidenthusiasm.webapp.model;
+
+/**
+ * Told when something an actor was relying on for its current multi-tick action has gone away, such as an item
+ * or an action being removed, so whoever is holding the actor back until the action completes can wake it early.
+ */
+public interface ActionInvalidationListener {
+    void actionPossiblyInvalidated(Actor actor);
+}
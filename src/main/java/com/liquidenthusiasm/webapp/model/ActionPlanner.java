@@ -0,0 +1,231 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ItemProvidingAction;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+
+import java.util.List;
+
+/**
+ * Scores actions by looking ahead through chains of {@link ItemProvidingAction}s, such as "buys a hoe", then
+ * "farms corn with" the hoe, then "eats" the corn.
+ * <p>
+ * Without a planner, an item providing action borrows the expected fulfillment of the first action of the item it
+ * provides. With one, its value is its own motive changes plus the best value of any of the provided item's
+ * actions, found the same way up to {@link #maxDepth(int)} steps ahead. Each step further ahead is discounted by
+ * the time factor (governed by the actor's foresight) of the action it waits on. At the depth limit, or once the
+ * search has used up its node or time budget for the decision, actions fall back to the greedy score, so a
+ * decision always completes in bounded time.
+ * <p>
+ * By default only the node budget applies, so a decision depends on nothing but the world it is made in, and the
+ * same seed makes the same choices however loaded the machine is. A time limit set with {@link #maxNanos(long)}
+ * trades that away: how far a decision looks ahead then depends on how fast it runs.
+ * <p>
+ * Values of (action, depth) pairs are memoized for the length of one decision in a fixed-size table; when a slot
+ * is taken, the value is simply not remembered. A planner holds search state, so each actor needs its own.
+ */
+public class ActionPlanner {
+    public static final int DEFAULT_MAX_DEPTH = 3;
+    public static final int DEFAULT_MAX_NODES = 1000;
+    public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+    public static final long DEFAULT_MAX_NANOS = NO_TIME_LIMIT;
+    public static final int DEFAULT_MEMO_CAPACITY = 256;
+    private static final int PROBES = 4;
+    private static final int TIME_CHECK_INTERVAL = 32;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxNodes = DEFAULT_MAX_NODES;
+    private long maxNanos = DEFAULT_MAX_NANOS;
+
+    private Object[] memoActions;
+    private int[] memoDepths;
+    private double[] memoValues;
+    private long[] memoStamps;
+    private long stamp = 0;
+
+    private int nodes;
+    private long started;
+    private boolean exhausted;
+    private long truncatedDecisions = 0;
+
+    public ActionPlanner() {
+        memoCapacity(DEFAULT_MEMO_CAPACITY);
+    }
+
+    /**
+     * @param maxDepth how many actions ahead to look, counting the one being scored; 1 means no lookahead
+     */
+    public ActionPlanner maxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Planning depth must be at least 1, but got " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * @param maxNodes how many lookahead steps one decision may expand before falling back to greedy scores
+     */
+    public ActionPlanner maxNodes(int maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("Node limit must not be negative, but got " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    /**
+     * @param maxNanos how long one decision may spend looking ahead before falling back to greedy scores, or
+     *                 {@link #NO_TIME_LIMIT}; any other value makes decisions depend on the speed of the machine
+     */
+    public ActionPlanner maxNanos(long maxNanos) {
+        if (maxNanos < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative, but got " + maxNanos);
+        }
+        this.maxNanos = maxNanos;
+        return this;
+    }
+
+    /**
+     * @param capacity the number of memo slots, rounded up to a power of two
+     */
+    public ActionPlanner memoCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Memo capacity must be at least 1, but got " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        memoActions = new Object[size];
+        memoDepths = new int[size];
+        memoValues = new double[size];
+        memoStamps = new long[size];
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public int getMemoCapacity() {
+        return memoActions.length;
+    }
+
+    /**
+     * @return the number of lookahead steps the last decision expanded
+     */
+    public int getLastDecisionNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return how many decisions ran out of node or time budget and fell back to greedy scores part way through
+     */
+    public long getTruncatedDecisions() {
+        return truncatedDecisions;
+    }
+
+    /**
+     * Starts a new decision: forgets the memo and resets the node and time budgets.
+     */
+    void beginDecision() {
+        stamp++;
+        nodes = 0;
+        exhausted = false;
+        started = System.nanoTime();
+    }
+
+    /**
+     * @return the value of performing this action now, looking ahead through any items it provides
+     */
+    double value(Actor actor, Action action) {
+        return value(actor, action, maxDepth);
+    }
+
+    private double value(Actor actor, Action action, int depth) {
+        if (depth <= 1 || !(action instanceof ItemProvidingAction) || !withinBudget()) {
+            return actor.utilityOf(action);
+        }
+        Item item = ((ItemProvidingAction) action).getProvidedItem();
+        if (item == null) {
+            return actor.utilityOf(action);
+        }
+        int slot = find(action, depth);
+        if (slot >= 0) {
+            return memoValues[slot];
+        }
+        nodes++;
+        double future = 0;
+        Action[] candidates = item.getCandidateActions(actor);
+        if (candidates == null) {
+            List<Action> actions = item.getActions(actor);
+            candidates = actions.toArray(new Action[actions.size()]);
+        }
+        for (Action next : candidates) {
+            if (next.isValid(actor)) {
+                future = Math.max(future, value(actor, next, depth - 1));
+            }
+        }
+        if (actor.getItems().contains(item)) {
+            future *= ItemProvidingAction.PREVIOUSLY_OWNED_ITEM_ADJUSTMENT;
+        }
+        MotiveVector own = ((MotivatedAction) action).getOwnMotiveVector();
+        double value = actor.calculateUtility(action, own) + future / actor.timeFactor(action.getCompletionTime());
+        remember(action, depth, value);
+        return value;
+    }
+
+    private boolean withinBudget() {
+        if (exhausted) {
+            return false;
+        }
+        if (nodes >= maxNodes || (maxNanos != NO_TIME_LIMIT && nodes % TIME_CHECK_INTERVAL == 0
+                && System.nanoTime() - started > maxNanos)) {
+            exhausted = true;
+            truncatedDecisions++;
+            return false;
+        }
+        return true;
+    }
+
+    private int hash(Action action, int depth) {
+        int h = System.identityHashCode(action) * 31 + depth;
+        return (h ^ (h >>> 16)) & (memoActions.length - 1);
+    }
+
+    private int find(Action action, int depth) {
+        int mask = memoActions.length - 1;
+        int slot = hash(action, depth);
+        for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+            if (memoStamps[slot] == stamp && memoActions[slot] == action && memoDepths[slot] == depth) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void remember(Action action, int depth, double value) {
+        int mask = memoActions.length - 1;
+        int slot = hash(action, depth);
+        for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+            if (memoStamps[slot] != stamp) {
+                memoStamps[slot] = stamp;
+                memoActions[slot] = action;
+                memoDepths[slot] = depth;
+                memoValues[slot] = value;
+                return;
+            }
+        }
+    }
+}
@@ -2,113 +2,318 @@ package com.liquidenthusiasm.webapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
 import com.liquidenthusiasm.webapp.model.action.ActionProvider;
+import com.liquidenthusiasm.webapp.model.action.ActionSetBound;
+import com.liquidenthusiasm.webapp.model.item.Inventory;
 import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.item.ItemPrototype;
 import com.liquidenthusiasm.webapp.model.motive.Desire;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveRegistry;
+import com.liquidenthusiasm.webapp.model.motive.MotiveTable;
 import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.MotiveValues;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+import com.liquidenthusiasm.webapp.model.trace.DecisionTracer;
+import com.liquidenthusiasm.webapp.util.CounterRandom;
+import com.liquidenthusiasm.webapp.util.PowerCurve;
+import com.liquidenthusiasm.webapp.util.TopK;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Actor implements ActionProvider {
+    private static final double BOUND_SLACK = 1e-9;
+    /**
+     * Whole-number motive values are whole numbers out of bounds, well within this table for the default motive range.
+     */
+    private static final PowerCurve OUT_OF_BOUNDS_PENALTY = PowerCurve.of(1.5, 1024);
+    private static final int TIME_FACTOR_TABLE_SIZE = 64;
     private String name;
-    private Map<Motive, Double> motives = new HashMap<>();
-    private Map<Motive, MotiveUpdate> motiveUpdates = new HashMap<>();
-    private Map<Motive, Desire> desires = new HashMap<>();
-    private List<Action> actions = new ArrayList<>();
+    private MotiveValues motives = new MotiveValues();
+    private MotiveTable<MotiveUpdate> motiveUpdates = new MotiveTable<>();
+    private MotiveTable<Desire> desires = new MotiveTable<>();
+    private final List<Action> actions = new ArrayList<>();
+    private final List<Action> actionsView = Collections.unmodifiableList(actions);
     @JsonIgnore
-    private Map<Motive, Double> motiveWeights = new HashMap<>();
-    private Set<Item> items = new HashSet<>();
+    private Action[] candidateActions;
+    @JsonIgnore
+    private MotiveValues motiveWeights = new MotiveValues();
+    private Inventory items = new Inventory();
     private BestActionAccumulator nextAction = new BestActionAccumulator(this);
     private double foresight = 1;
+    @JsonIgnore
+    private PowerCurve timeCurve;
+    @JsonIgnore
+    private DecisionTracer tracer;
+    @JsonIgnore
+    private final UtilityCache utilityCache = new UtilityCache();
+    @JsonIgnore
+    private final ActionIndex actionIndex = new ActionIndex(this);
+    @JsonIgnore
+    private ActionSetBound ownActionsBound;
+    @JsonIgnore
+    private long skippedProviders = 0;
+    @JsonIgnore
+    private ActionInvalidationListener invalidationListener;
+    @JsonIgnore
+    private ActionLogger actionLogger;
+    @JsonIgnore
+    private ActionPlanner planner;
+    @JsonIgnore
+    private CounterRandom random;
 
     public Actor(String name) {
         this.name = name;
     }
 
     public void addMotive(Motive motive, double amount) {
+        int ordinal = motive.getOrdinal();
         double newAmt;
-        if (!motives.containsKey(motive)) {
+        if (!motives.contains(ordinal)) {
             newAmt = amount;
         } else {
-            newAmt = motives.get(motive) + amount;
+            newAmt = motives.get(ordinal, 0) + amount;
         }
         if (newAmt > motive.getMax()) {
             newAmt = motive.getMax();
         } else if (newAmt < motive.getMin()) {
             newAmt = motive.getMin();
         }
-        motives.put(motive, newAmt);
+        if (newAmt != motives.get(ordinal, Double.NaN)) {
+            motives.put(ordinal, newAmt);
+            utilityCache.motiveChanged(ordinal);
+        }
     }
 
+    /**
+     * @return a read-only view of this actor's current motive values
+     */
     public Map<Motive, Double> getMotives() {
-        return motives;
+        return motives.asMap();
     }
 
     public double getMotive(Motive motive) {
-        if (!motives.containsKey(motive)) {
-            return 0;
-        }
-        return motives.get(motive);
+        return motives.get(motive.getOrdinal(), 0);
     }
 
     public void registerMotiveUpdate(Motive motive, MotiveUpdate motiveUpdate) {
-        motiveUpdates.put(motive, motiveUpdate);
+        motiveUpdates.put(motive.getOrdinal(), motiveUpdate);
     }
 
     public void update() {
-        for (Map.Entry<Motive, MotiveUpdate> entry : motiveUpdates.entrySet()) {
-            entry.getValue().update(entry.getKey(), this);
+        for (int i = 0; i < motiveUpdates.capacity(); i++) {
+            MotiveUpdate motiveUpdate = motiveUpdates.get(i);
+            if (motiveUpdate != null) {
+                motiveUpdate.update(MotiveRegistry.get(i), this);
+            }
         }
     }
 
+    /**
+     * @return a read-only view of the motive updates registered for this actor
+     */
     public Map<Motive, MotiveUpdate> getMotiveUpdates() {
-        return motiveUpdates;
+        return motiveUpdates.asMap();
     }
 
     public void registerDesire(Motive motive, int min, int ideal, int max) {
-        desires.put(motive, new Desire(motive, min, ideal, max));
+        desires.put(motive.getOrdinal(), new Desire(motive, min, ideal, max));
+        utilityCache.motiveChanged(motive.getOrdinal());
     }
 
     public void addAction(Action action) {
         actions.add(action);
+        actionsChanged();
     }
 
+    /**
+     * Chooses the action to perform next. Only actions that could move an unsatisfied motive towards its ideal
+     * are scored (see {@link ActionIndex}); traced actors score every action, so the trace shows all of them, and
+     * so do planning actors, since an action that does nothing for their motives may lead to one that does.
+     */
     public Action considerNextAction() {
         nextAction.verifyLongActionStillValid();
-        nextAction.consider(this);
-        for (Item item : items) {
-            nextAction.consider(item);
+        if (planner != null) {
+            planner.beginDecision();
+        }
+        if (tracer != null || planner != null) {
+            nextAction.consider(this);
+            for (Item item : items) {
+                nextAction.consider(item);
+            }
+        } else {
+            nextAction.considerIndexed();
         }
 
         return nextAction.getAction();
     }
 
-    private double calculateUtility(Action action) {
+    /**
+     * Ranks the valid actions this actor could perform right now, its own and its items', and returns the best
+     * {@code k} of them, best first, with their utilities. Each action is scored at most once, and providers whose
+     * utility bound can't beat the k-th best so far are skipped. Unlike {@link #considerNextAction()} no random
+     * tie-breaker is applied, and the action the actor is about to perform is left alone.
+     */
+    public List<TopK.Scored<Action>> rankActions(int k) {
+        TopK<Action> ranking = new TopK<>(k);
+        if (planner != null) {
+            planner.beginDecision();
+        }
+        rank(this, ranking);
+        for (Item item : items) {
+            rank(item, ranking);
+        }
+        return ranking.toList();
+    }
+
+    private void rank(ActionProvider provider, TopK<Action> ranking) {
+        if (canSkip() && ranking.isFull() && provider.getUtilityBound(this) + BOUND_SLACK < ranking.threshold()) {
+            return;
+        }
+        Action[] candidates = provider.getCandidateActions(this);
+        if (candidates == null) {
+            List<Action> actions = provider.getActions(this);
+            candidates = actions.toArray(new Action[actions.size()]);
+        }
+        for (Action action : candidates) {
+            if (action.isValid(this)) {
+                ranking.offer(action, score(action));
+            }
+        }
+    }
+
+    /**
+     * Brings the action index up to date. Items and actions can only be added and removed through this actor,
+     * which indexes them as they change, so the whole index is only rebuilt when the action definitions change.
+     */
+    private ActionIndex indexedActions() {
+        if (!actionIndex.isCurrent()) {
+            actionIndex.clear();
+            actionIndex.add(this);
+            for (Item item : items) {
+                actionIndex.add(item);
+            }
+        }
+        return actionIndex;
+    }
+
+    /**
+     * @return true if providers may be skipped on the strength of their utility bound; bounds only cover the
+     * action itself, so not when tracing (which shows everything) or planning (which looks past it)
+     */
+    private boolean canSkip() {
+        return tracer == null && planner == null;
+    }
+
+    /**
+     * Scores an action for a decision: its utility, or if this actor plans ahead, its value to the planner.
+     */
+    private double score(Action action) {
+        return planner == null ? utilityOf(action) : planner.value(this, action);
+    }
+
+    /**
+     * Scores an action, reusing the last score if nothing it depends on has changed since. Traced actors always
+     * recompute, so every decision shows up in the trace.
+     */
+    double utilityOf(Action action) {
+        MotiveVector motiveChanges = action.getExpectedMotiveVector(this);
+        if (tracer != null) {
+            return calculateUtility(action, motiveChanges);
+        }
+        int completionTime = action.getCompletionTime();
+        UtilityCache.Entry cached = utilityCache.lookup(action, motiveChanges, completionTime);
+        if (cached.isValid()) {
+            return cached.getUtility();
+        }
+        double utility = calculateUtility(action, motiveChanges);
+        utilityCache.store(cached, motiveChanges, completionTime, utility);
+        return utility;
+    }
+
+    double calculateUtility(Action action, MotiveVector motiveChanges) {
         double utility = 0d;
-        Map<Motive, Double> motiveChanges = action.getExpectedMotiveFulfillment(this);
-        double timeFactor = Math.pow((action.getCompletionTime() - 1), foresight) + 1;
-        System.out.printf(String.format("Time factor for action %s: %.5f%n", action.getName(), timeFactor));
-        for (Map.Entry<Motive, Double> entry : motiveChanges.entrySet()) {
-            Motive motive = entry.getKey();
-            Double change = entry.getValue();
-            Desire desire = desires.get(motive);
+        double timeFactor = timeFactor(action.getCompletionTime());
+        for (int i = 0; i < motiveChanges.size(); i++) {
+            int ordinal = motiveChanges.ordinal(i);
+            double change = motiveChanges.delta(i);
+            Desire desire = desires.get(ordinal);
             if (desire == null) {
                 continue;
             }
-            double originalVal = getMotive(motive);
+            double originalVal = motives.get(ordinal, 0);
             double newVal = originalVal + change;
             int ideal = desire.getIdeal();
 
             double origHappiness = -Math.abs(originalVal - ideal) - addWeightToOutOfBoundsDesires(desire, originalVal);
             double newHappiness = -Math.abs(newVal - ideal) - addWeightToOutOfBoundsDesires(desire, newVal);
-            double thisMotiveUtility = ((newHappiness - origHappiness) * getMotiveWeight(motive)) / timeFactor;
-            System.out.printf("(%15s): %3.0f + %3.0f; utility=%.1f\n", motive.getName(), getMotive(motive), change, thisMotiveUtility);
+            double thisMotiveUtility = ((newHappiness - origHappiness) * motiveWeights.get(ordinal, 1d)) / timeFactor;
+            if (tracer != null) {
+                tracer.motiveUtility(this, action, MotiveRegistry.get(ordinal), timeFactor, originalVal, change, thisMotiveUtility);
+            }
             utility += thisMotiveUtility;
         }
         return utility;
     }
 
+    /**
+     * @return how much the utility of an action taking this many ticks is divided by, given this actor's foresight
+     */
+    double timeFactor(int completionTime) {
+        PowerCurve curve = timeCurve;
+        if (curve == null) {
+            curve = PowerCurve.of(foresight, TIME_FACTOR_TABLE_SIZE);
+            timeCurve = curve;
+        }
+        return curve.at(completionTime - 1) + 1;
+    }
+
+    /**
+     * Returns an upper bound on the utility of any action whose changes are no larger than {@code maxChanges}.
+     * <p>
+     * For each motive, happiness is highest (zero) at the ideal, so a change can gain at most the motive's current
+     * unhappiness. Unhappiness grows by 1 per unit of distance from the ideal plus the out-of-bounds penalty
+     * {@code o^1.5}, whose slope never exceeds {@code 1.5 * sqrt(o)} between the current value and the ideal, so a
+     * change of size {@code d} gains at most {@code d * (1 + 1.5 * sqrt(o))}. Dividing by a time factor of at least
+     * 1 can only shrink a positive utility.
+     *
+     * @param maxChanges the largest change to each motive, or null for no bound
+     */
+    public double utilityBound(MotiveVector maxChanges) {
+        if (maxChanges == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double bound = 0;
+        for (int i = 0; i < maxChanges.size(); i++) {
+            int ordinal = maxChanges.ordinal(i);
+            Desire desire = desires.get(ordinal);
+            if (desire == null) {
+                continue;
+            }
+            double value = motives.get(ordinal, 0);
+            double distance = Math.abs(value - desire.getIdeal());
+            if (distance == 0) {
+                continue;
+            }
+            double outOfBounds = value < desire.getMin() ? desire.getMin() - value
+                    : value > desire.getMax() ? value - desire.getMax() : 0;
+            double unhappiness = distance + OUT_OF_BOUNDS_PENALTY.at(outOfBounds);
+            double largestGain = Math.abs(maxChanges.delta(i)) * (1 + 1.5 * Math.sqrt(outOfBounds));
+            bound += Math.min(unhappiness, largestGain) * motiveWeights.get(ordinal, 1d);
+        }
+        return bound;
+    }
+
+    /**
+     * @return how many times a provider has been skipped during a decision because its utility bound showed it
+     * could not beat the best action found so far
+     */
+    public long getSkippedProviderCount() {
+        return skippedProviders;
+    }
+
     private double addWeightToOutOfBoundsDesires(Desire desire, double originalVal) {
         double retval = 0;
         int minDesire = desire.getMin();
@@ -120,7 +325,7 @@ public class Actor implements ActionProvider {
                 retval = (originalVal - maxDesire);
             }
         }
-        return Math.pow(retval, 1.5);
+        return OUT_OF_BOUNDS_PENALTY.at(retval);
     }
 
     public Action performNextAction() {
@@ -141,42 +346,85 @@ public class Actor implements ActionProvider {
         if (motive == null) {
             throw new IllegalArgumentException("Motive for a motive weight must be non-null");
         }
-        motiveWeights.put(motive, weight);
+        motiveWeights.put(motive.getOrdinal(), weight);
+        utilityCache.motiveChanged(motive.getOrdinal());
     }
 
-    public Double getMotiveWeight(Motive motive) {
-        Double weight = motiveWeights.get(motive);
-        if (weight == null) {
-            return 1d;
-        }
-        return weight;
+    public double getMotiveWeight(Motive motive) {
+        return motiveWeights.get(motive.getOrdinal(), 1d);
     }
 
+    /**
+     * Adds an item, merging it into the stack of the same name if this actor already holds one (see {@link Inventory}).
+     */
     public void addItem(Item item) {
-        if (items.contains(item)) {
-            for (Item item1 : items) {
-                if (item1.equals(item)) {
-
-                    if (item.getUses() == Item.INFINITE_USES || item1.getUses() == Item.INFINITE_USES) {
-                        item1.setUses(Item.INFINITE_USES);
-                    } else {
-                        item1.setUses(item1.getUses() + item.getUses());
-                    }
-                    break;
-                }
-            }
-        } else {
-            items.add(item);
+        if (items.add(item) && actionIndex.isCurrent()) {
+            actionIndex.add(item);
         }
     }
 
+    /**
+     * Adds this many uses of an item of the given kind, only making a new item if this actor holds none yet.
+     */
+    public void addItem(ItemPrototype prototype, int uses) {
+        if (items.add(prototype, uses) && actionIndex.isCurrent()) {
+            actionIndex.add(items.get(prototype.getName()));
+        }
+    }
+
+    public void addItems(Collection<Item> toAdd) {
+        for (Item item : toAdd) {
+            addItem(item);
+        }
+    }
+
+    /**
+     * @return a read-only view of this actor's items; add and remove them through the actor, so it can keep its
+     * action index and any parked action up to date
+     */
     public Set<Item> getItems() {
-        return items;
+        return items.readOnlyView();
     }
 
+    /**
+     * @return the same read-only view as {@link #getItems()}, with lookups by name
+     */
+    @JsonIgnore
+    public Inventory getInventory() {
+        return items.readOnlyView();
+    }
+
+    /**
+     * @return a read-only view of this actor's own actions; add and remove them through the actor, so it can keep
+     * its candidate actions and action index up to date
+     */
     @Override
     public List<Action> getActions(Actor actor) {
-        return actions;
+        return actionsView;
+    }
+
+    /**
+     * @return this actor's own actions as an array, made again only after an action is added or removed
+     */
+    @Override
+    public Action[] getCandidateActions(Actor actor) {
+        Action[] candidates = candidateActions;
+        if (candidates == null) {
+            candidates = actions.toArray(new Action[actions.size()]);
+            candidateActions = candidates;
+        }
+        return candidates;
+    }
+
+    @Override
+    public double getUtilityBound(Actor actor) {
+        Action[] candidates = getCandidateActions(this);
+        ActionSetBound bound = ownActionsBound;
+        if (bound == null || !bound.isFor(candidates)) {
+            bound = ActionSetBound.of(candidates, this);
+            ownActionsBound = bound;
+        }
+        return actor.utilityBound(bound.getMaxChanges());
     }
 
     @Override
@@ -185,13 +433,69 @@ public class Actor implements ActionProvider {
 
     public void removeItem(Item item) {
         items.remove(item);
+        actionIndex.remove(item);
+        actionPossiblyInvalidated();
+    }
+
+    /**
+     * Removes the stacks of all of these items at once, so a parked action is only woken once for all of them.
+     */
+    public void removeItems(Collection<Item> toRemove) {
+        for (Item item : toRemove) {
+            if (items.remove(item)) {
+                actionIndex.remove(item);
+            }
+        }
+        actionPossiblyInvalidated();
     }
 
     public void removeAction(Action action) {
         actions.remove(action);
+        actionsChanged();
+        actionPossiblyInvalidated();
+    }
+
+    private void actionsChanged() {
+        candidateActions = null;
+        if (actionIndex.isCurrent()) {
+            actionIndex.add(this);
+        }
+    }
+
+    private void actionPossiblyInvalidated() {
+        if (invalidationListener != null && nextAction.timer > 0) {
+            invalidationListener.actionPossiblyInvalidated(this);
+        }
+    }
+
+    public void setActionInvalidationListener(ActionInvalidationListener invalidationListener) {
+        this.invalidationListener = invalidationListener;
+    }
+
+    /**
+     * @return how many more calls to {@link #performNextAction()} it will take for the current multi-tick action to
+     * complete, counting the call that completes it, or 0 if the actor is not part way through an action
+     */
+    @JsonIgnore
+    public int getRemainingActionTicks() {
+        return nextAction.timer;
+    }
+
+    /**
+     * Fast-forwards a multi-tick action for an actor that was not driven for some ticks, so that it completes
+     * after {@code remainingTicks} more calls to {@link #performNextAction()}.
+     */
+    void resumeLongAction(int remainingTicks) {
+        if (nextAction.timer > 0) {
+            nextAction.timer = Math.max(1, remainingTicks);
+        }
     }
 
     public void setForesight(double foresight) {
+        if (foresight != this.foresight) {
+            utilityCache.invalidateAll();
+            timeCurve = null;
+        }
         this.foresight = foresight;
     }
 
@@ -199,6 +503,117 @@ public class Actor implements ActionProvider {
         return foresight;
     }
 
+    @JsonIgnore
+    public UtilityCache getUtilityCache() {
+        return utilityCache;
+    }
+
+    /**
+     * Attaches a tracer to this actor's decisions, or detaches the current one when null.
+     * The tracer is only kept if it wants to trace this actor.
+     */
+    public void setDecisionTracer(DecisionTracer tracer) {
+        this.tracer = tracer != null && tracer.traces(this) ? tracer : null;
+    }
+
+    @JsonIgnore
+    public DecisionTracer getDecisionTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the random numbers this actor breaks ties between equally good actions with. An actor that is given a
+     * seeded stream, and nothing else draws from it, makes the same choices every time it is run, and one given a
+     * copy of a stream part way through carries on as the original would.
+     */
+    public void setRandom(CounterRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("May not set a null random number generator on actor " + name);
+        }
+        this.random = random;
+    }
+
+    /**
+     * @return the stream this actor breaks ties with, or null if it has neither been given one nor needed one yet
+     */
+    @JsonIgnore
+    public CounterRandom getRandom() {
+        return random;
+    }
+
+    private CounterRandom tieBreaker() {
+        if (random == null) {
+            random = new CounterRandom(ThreadLocalRandom.current().nextLong());
+        }
+        return random;
+    }
+
+    /**
+     * Makes this actor look ahead through the items its actions provide when choosing what to do, or choose
+     * greedily again when null. Each actor needs a planner of its own.
+     */
+    public void setPlanner(ActionPlanner planner) {
+        this.planner = planner;
+    }
+
+    @JsonIgnore
+    public ActionPlanner getPlanner() {
+        return planner;
+    }
+
+    /**
+     * Sets the logger this actor's actions are counted in, or null to count them in the global logger.
+     */
+    public void setActionLogger(ActionLogger actionLogger) {
+        this.actionLogger = actionLogger;
+    }
+
+    @JsonIgnore
+    public ActionLogger getActionLogger() {
+        return actionLogger;
+    }
+
+    MotiveValues motiveValues() {
+        return motives;
+    }
+
+    MotiveTable<Desire> desireTable() {
+        return desires;
+    }
+
+    MotiveValues motiveWeightValues() {
+        return motiveWeights;
+    }
+
+    MotiveTable<MotiveUpdate> motiveUpdateTable() {
+        return motiveUpdates;
+    }
+
+    /**
+     * @return the action this actor has settled on, whether or not it has started performing it
+     */
+    Action getDecidedAction() {
+        return nextAction.action;
+    }
+
+    ActionProvider getDecidedProvider() {
+        return nextAction.provider;
+    }
+
+    double getDecidedUtility() {
+        return nextAction.utility;
+    }
+
+    /**
+     * Puts back a decision saved from another actor, so this one carries on exactly where that one left off.
+     */
+    void restoreDecision(ActionProvider provider, Action action, double utility, int remainingTicks) {
+        nextAction.provider = provider;
+        nextAction.action = action;
+        nextAction.utility = utility;
+        nextAction.timer = remainingTicks;
+    }
+
     private class BestActionAccumulator implements Action {
         private final Actor owner;
         private Action action;
@@ -238,6 +653,46 @@ public class Actor implements ActionProvider {
             timer = 0;
         }
 
+        /**
+         * Considers only the actions the index says could be worth performing.
+         */
+        void considerIndexed() {
+            if (timer > 0) {
+                return;
+            }
+            if (utility == 0) {
+                this.action = null;
+                this.provider = null;
+            }
+            ActionIndex index = indexedActions();
+            int count = index.gather(motives, desires);
+            long stamp = index.stamp();
+            for (int i = 0; i < count; i++) {
+                ActionIndex.Candidate candidate = index.gathered(i);
+                ActionIndex.Source source = candidate.source;
+                if (source.boundStamp != stamp) {
+                    source.bound = source.provider.getUtilityBound(owner);
+                    source.boundStamp = stamp;
+                }
+                if (cannotBeat(source.bound)) {
+                    if (source.skippedStamp != stamp) {
+                        source.skippedStamp = stamp;
+                        skippedProviders++;
+                    }
+                    continue;
+                }
+                consider(candidate.provider, candidate.action);
+            }
+        }
+
+        /**
+         * @return true if a provider with this utility bound cannot offer anything better than the current best.
+         * The slack absorbs rounding differences between the bound and the utilities it bounds.
+         */
+        private boolean cannotBeat(double bound) {
+            return bound + BOUND_SLACK < utility;
+        }
+
         public void consider(ActionProvider provider) {
             if (timer > 0) {
                 return;
@@ -246,14 +701,30 @@ public class Actor implements ActionProvider {
                 this.action = null;
                 this.provider = null;
             }
-            for (Action a : provider.getActions(owner)) {
-                if (!a.isValid(owner)) continue;
-                double curUtil = calculateUtility(a) - Math.random() * 0.01; // The Math.random() is a fudge factor to help alternate between options of equal utility
-                if (curUtil > utility) {
-                    this.utility = curUtil;
-                    this.action = a;
-                    this.provider = provider;
+            // traced actors score everything, so the trace shows every option
+            if (canSkip() && utility > 0 && cannotBeat(provider.getUtilityBound(owner))) {
+                skippedProviders++;
+                return;
+            }
+            Action[] candidates = provider.getCandidateActions(owner);
+            if (candidates == null) {
+                for (Action a : provider.getActions(owner)) {
+                    consider(provider, a);
                 }
+                return;
+            }
+            for (Action a : candidates) {
+                consider(provider, a);
+            }
+        }
+
+        private void consider(ActionProvider provider, Action a) {
+            if (!a.isValid(owner)) return;
+            double curUtil = score(a) - tieBreaker().nextDouble() * 0.01; // The random number is a fudge factor to help alternate between options of equal utility
+            if (curUtil > utility) {
+                this.utility = curUtil;
+                this.action = a;
+                this.provider = provider;
             }
         }
 
@@ -345,12 +816,25 @@ public class Actor implements ActionProvider {
                 bad = bad || !owner.items.contains(provider);
             }
             if (provider != null) {
-                bad = bad || !provider.getActions(owner).contains(action);
+                bad = bad || !offers(provider, action);
             }
 
             if (bad) {
                 reset();
             }
         }
+
+        private boolean offers(ActionProvider provider, Action action) {
+            Action[] candidates = provider.getCandidateActions(owner);
+            if (candidates == null) {
+                return provider.getActions(owner).contains(action);
+            }
+            for (Action candidate : candidates) {
+                if (action.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -0,0 +1,543 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionProvider;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Desire;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveRegistry;
+import com.liquidenthusiasm.webapp.model.motive.MotiveTable;
+import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.MotiveValues;
+import com.liquidenthusiasm.webapp.util.CounterRandom;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.liquidenthusiasm.webapp.model.WorldSnapshot.DETACHED;
+import static com.liquidenthusiasm.webapp.model.WorldSnapshot.NONE;
+import static com.liquidenthusiasm.webapp.model.WorldSnapshot.OWN;
+
+/**
+ * Writes actors as JSON and reads them back, a token at a time, holding the same state a {@link WorldSnapshot}
+ * does and resolving definitions by name through a {@link SnapshotCatalog} in the same way.
+ * <p>
+ * Motives, actions, items and named motive updates are written as small ids, and everything about an actor is
+ * written as flat arrays of numbers rather than nested objects. Ids are handed out in the order names are first
+ * written, and an actor that uses a name for the first time carries it in a {@code define} object ahead of its
+ * arrays, so a codec writing many actors names each definition only once, and a reader learns the names as it
+ * goes. An actor is written as:
+ * <pre>
+ * {"name": "...", "foresight": 1.0, "random": [key, draws],
+ *  "define": {"motives": [names], "actions": [names], "items": [names], "updates": [names]},
+ *  "motives": [motive, value, ...],
+ *  "desires": [motive, min, ideal, max, ...],
+ *  "weights": [motive, weight, ...],
+ *  "constantUpdates": [motive, amount, ...],
+ *  "namedUpdates": [motive, update, ...],
+ *  "actions": [action, ...],
+ *  "items": [item, uses, ...],
+ *  "decision": [provider, (item, uses when detached), (action unless none), utility, remaining ticks]}
+ * </pre>
+ * where the random stream is the actor's {@link CounterRandom}, left out if it has none yet, and the decision's
+ * provider is encoded as in {@link WorldSnapshot}. The name comes first and the decision
+ * last; any array may be left out when it would be empty. Codecs remember ids, so each is good for one stream.
+ */
+final class ActorJson {
+    private final SnapshotCatalog catalog;
+
+    private final Ids motiveNames = new Ids();
+    private final Ids actionNames = new Ids();
+    private final Ids itemNames = new Ids();
+    private final Ids updateNames = new Ids();
+    private int[] motiveIds = new int[0];
+    private final Map<Action, Integer> actionIds = new IdentityHashMap<>();
+
+    private final List<Motive> motives = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+    private final List<Item> items = new ArrayList<>();
+    private final List<MotiveUpdate> updates = new ArrayList<>();
+
+    ActorJson(SnapshotCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Hands out ids for the names of one kind of definition, remembering which haven't been written yet.
+     */
+    private static final class Ids {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> unwritten = new ArrayList<>();
+
+        int id(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = ids.size();
+                ids.put(name, id);
+                unwritten.add(name);
+            }
+            return id;
+        }
+    }
+
+    void write(Actor actor, int remainingTicks, JsonGenerator json) throws IOException {
+        MotiveValues motiveValues = actor.motiveValues();
+        MotiveTable<Desire> desires = actor.desireTable();
+        MotiveValues weights = actor.motiveWeightValues();
+        MotiveTable<MotiveUpdate> motiveUpdates = actor.motiveUpdateTable();
+        List<Action> ownActions = actor.getActions(actor);
+        Item[] owned = actor.getItems().toArray(new Item[0]);
+        Action decided = actor.getDecidedAction();
+        ActionProvider provider = actor.getDecidedProvider();
+        int providerIndex = decided == null ? NONE : provider == actor ? OWN : WorldSnapshot.indexOf(provider, owned);
+        if (decided != null && provider != actor && !(provider instanceof Item)) {
+            throw new IllegalArgumentException(String.format("Can't save %s's decision to %s, which was offered by %s rather than the actor or an item",
+                    actor.getName(), decided.getName(), provider));
+        }
+
+        json.writeStartObject();
+        json.writeStringField("name", actor.getName());
+        json.writeNumberField("foresight", actor.getForesight());
+        CounterRandom random = actor.getRandom();
+        if (random != null) {
+            json.writeArrayFieldStart("random");
+            json.writeNumber(random.getKey());
+            json.writeNumber(random.getDraws());
+            json.writeEndArray();
+        }
+        defineAll(actor, motiveValues, desires, weights, motiveUpdates, ownActions, owned,
+                providerIndex == NONE && decided != null ? (Item) provider : null, json);
+
+        if (motiveValues.size() > 0) {
+            json.writeArrayFieldStart("motives");
+            for (int i = 0; i < motiveValues.capacity(); i++) {
+                if (motiveValues.contains(i)) {
+                    json.writeNumber(motiveId(i));
+                    json.writeNumber(motiveValues.get(i, 0));
+                }
+            }
+            json.writeEndArray();
+        }
+        if (desires.size() > 0) {
+            json.writeArrayFieldStart("desires");
+            for (int i = 0; i < desires.capacity(); i++) {
+                Desire desire = desires.get(i);
+                if (desire != null) {
+                    json.writeNumber(motiveId(i));
+                    json.writeNumber(desire.getMin());
+                    json.writeNumber(desire.getIdeal());
+                    json.writeNumber(desire.getMax());
+                }
+            }
+            json.writeEndArray();
+        }
+        if (weights.size() > 0) {
+            json.writeArrayFieldStart("weights");
+            for (int i = 0; i < weights.capacity(); i++) {
+                if (weights.contains(i)) {
+                    json.writeNumber(motiveId(i));
+                    json.writeNumber(weights.get(i, 1d));
+                }
+            }
+            json.writeEndArray();
+        }
+        writeUpdates(motiveUpdates, true, json);
+        writeUpdates(motiveUpdates, false, json);
+        if (!ownActions.isEmpty()) {
+            json.writeArrayFieldStart("actions");
+            for (Action action : ownActions) {
+                json.writeNumber(actionId(action));
+            }
+            json.writeEndArray();
+        }
+        if (owned.length > 0) {
+            json.writeArrayFieldStart("items");
+            for (Item item : owned) {
+                json.writeNumber(itemId(item));
+                json.writeNumber(item.getUses());
+            }
+            json.writeEndArray();
+        }
+
+        json.writeArrayFieldStart("decision");
+        if (decided == null) {
+            json.writeNumber(NONE);
+        } else {
+            if (providerIndex == NONE) {
+                Item detached = (Item) provider;
+                json.writeNumber(DETACHED);
+                json.writeNumber(itemId(detached));
+                json.writeNumber(detached.getUses());
+            } else {
+                json.writeNumber(providerIndex);
+            }
+            json.writeNumber(WorldSnapshot.indexOf(decided, provider.getCandidateActions(actor), provider));
+        }
+        json.writeNumber(actor.getDecidedUtility());
+        json.writeNumber(remainingTicks);
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Hands out ids for everything the actor refers to, then writes the names that haven't been written before.
+     */
+    private void defineAll(Actor actor, MotiveValues motiveValues, MotiveTable<Desire> desires, MotiveValues weights,
+                           MotiveTable<MotiveUpdate> motiveUpdates, List<Action> ownActions, Item[] owned,
+                           Item detached, JsonGenerator json) throws IOException {
+        for (int i = 0; i < motiveValues.capacity(); i++) {
+            if (motiveValues.contains(i)) {
+                motiveId(i);
+            }
+        }
+        for (int i = 0; i < desires.capacity(); i++) {
+            if (desires.get(i) != null) {
+                motiveId(i);
+            }
+        }
+        for (int i = 0; i < weights.capacity(); i++) {
+            if (weights.contains(i)) {
+                motiveId(i);
+            }
+        }
+        for (int i = 0; i < motiveUpdates.capacity(); i++) {
+            MotiveUpdate update = motiveUpdates.get(i);
+            if (update != null) {
+                motiveId(i);
+                updateId(update);
+            }
+        }
+        for (Action action : ownActions) {
+            actionId(action);
+        }
+        for (Item item : owned) {
+            itemId(item);
+        }
+        if (detached != null) {
+            itemId(detached);
+        }
+        if (motiveNames.unwritten.isEmpty() && actionNames.unwritten.isEmpty() && itemNames.unwritten.isEmpty()
+                && updateNames.unwritten.isEmpty()) {
+            return;
+        }
+        json.writeObjectFieldStart("define");
+        writeNames("motives", motiveNames, json);
+        writeNames("actions", actionNames, json);
+        writeNames("items", itemNames, json);
+        writeNames("updates", updateNames, json);
+        json.writeEndObject();
+    }
+
+    private static void writeNames(String field, Ids ids, JsonGenerator json) throws IOException {
+        if (ids.unwritten.isEmpty()) {
+            return;
+        }
+        json.writeArrayFieldStart(field);
+        for (String name : ids.unwritten) {
+            json.writeString(name);
+        }
+        json.writeEndArray();
+        ids.unwritten.clear();
+    }
+
+    private void writeUpdates(MotiveTable<MotiveUpdate> motiveUpdates, boolean constant, JsonGenerator json) throws IOException {
+        boolean started = false;
+        for (int i = 0; i < motiveUpdates.capacity(); i++) {
+            MotiveUpdate update = motiveUpdates.get(i);
+            if (update == null || (updateId(update) == NONE) != constant) {
+                continue;
+            }
+            if (!started) {
+                json.writeArrayFieldStart(constant ? "constantUpdates" : "namedUpdates");
+                started = true;
+            }
+            json.writeNumber(motiveId(i));
+            if (constant) {
+                json.writeNumber(((ConstantMotiveUpdate) update).getAmount());
+            } else {
+                json.writeNumber(updateId(update));
+            }
+        }
+        if (started) {
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * @return the id of a named motive update, or {@link WorldSnapshot#NONE} for a constant one saved by amount
+     */
+    private int updateId(MotiveUpdate update) {
+        String name = catalog.getMotiveUpdateName(update);
+        if (name != null) {
+            return updateNames.id(name);
+        }
+        if (update instanceof ConstantMotiveUpdate) {
+            return NONE;
+        }
+        throw new IllegalArgumentException(String.format("The snapshot catalog has no name for the motive update %s", update));
+    }
+
+    private int motiveId(int ordinal) {
+        if (ordinal >= motiveIds.length) {
+            int oldLength = motiveIds.length;
+            motiveIds = Arrays.copyOf(motiveIds, Math.max(ordinal + 1, MotiveRegistry.size()));
+            Arrays.fill(motiveIds, oldLength, motiveIds.length, NONE);
+        }
+        int id = motiveIds[ordinal];
+        if (id == NONE) {
+            Motive motive = MotiveRegistry.get(ordinal);
+            if (catalog.getMotive(motive.getName()) != motive) {
+                throw new IllegalArgumentException(String.format("The snapshot catalog has a different motive named '%s'", motive.getName()));
+            }
+            id = motiveNames.id(motive.getName());
+            motiveIds[ordinal] = id;
+        }
+        return id;
+    }
+
+    private int actionId(Action action) {
+        Integer id = actionIds.get(action);
+        if (id == null) {
+            if (catalog.getAction(action.getName()) != action) {
+                throw new IllegalArgumentException(String.format("The snapshot catalog has a different action named '%s'", action.getName()));
+            }
+            id = actionNames.id(action.getName());
+            actionIds.put(action, id);
+        }
+        return id;
+    }
+
+    private int itemId(Item item) {
+        if (!itemNames.ids.containsKey(item.getName())) {
+            catalog.getItem(item.getName());
+        }
+        return itemNames.id(item.getName());
+    }
+
+    /**
+     * Reads one actor, starting at its {@link JsonToken#START_OBJECT} and finishing on its
+     * {@link JsonToken#END_OBJECT}.
+     */
+    Actor read(JsonParser json) throws IOException {
+        expect(json.getCurrentToken(), JsonToken.START_OBJECT, "an actor");
+        if (json.nextToken() != JsonToken.FIELD_NAME || !"name".equals(json.getCurrentName())) {
+            throw new IllegalArgumentException("An actor's name must be its first field");
+        }
+        json.nextToken();
+        Actor actor = new Actor(json.getValueAsString());
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.getCurrentName();
+            JsonToken value = json.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "foresight":
+                    actor.setForesight(json.getDoubleValue());
+                    break;
+                case "random":
+                    startArray(json, value, field);
+                    actor.setRandom(new CounterRandom(nextLong(json), nextLong(json)));
+                    expect(json.nextToken(), JsonToken.END_ARRAY, "the end of the random stream");
+                    break;
+                case "define":
+                    readDefinitions(json);
+                    break;
+                case "motives":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.addMotive(motive(json), nextDouble(json));
+                    }
+                    break;
+                case "desires":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.registerDesire(motive(json), nextInt(json), nextInt(json), nextInt(json));
+                    }
+                    break;
+                case "weights":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.setMotiveWeight(motive(json), nextDouble(json));
+                    }
+                    break;
+                case "constantUpdates":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.registerMotiveUpdate(motive(json), WorldSnapshot.constantUpdate(nextDouble(json)));
+                    }
+                    break;
+                case "namedUpdates":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.registerMotiveUpdate(motive(json), lookUp(updates, nextInt(json), "motive update"));
+                    }
+                    break;
+                case "actions":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.addAction(lookUp(actions, json.getIntValue(), "action"));
+                    }
+                    break;
+                case "items":
+                    startArray(json, value, field);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        actor.addItem(lookUp(items, json.getIntValue(), "item").copy(nextInt(json)));
+                    }
+                    break;
+                case "decision":
+                    startArray(json, value, field);
+                    readDecision(json, actor);
+                    break;
+                default:
+                    json.skipChildren();
+            }
+        }
+        expect(json.getCurrentToken(), JsonToken.END_OBJECT, "the end of " + actor.getName());
+        return actor;
+    }
+
+    private void readDefinitions(JsonParser json) throws IOException {
+        expect(json.getCurrentToken(), JsonToken.START_OBJECT, "definitions");
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.getCurrentName();
+            startArray(json, json.nextToken(), field);
+            while (json.nextToken() != JsonToken.END_ARRAY) {
+                String name = json.getValueAsString();
+                switch (field) {
+                    case "motives":
+                        motives.add(catalog.getMotive(name));
+                        break;
+                    case "actions":
+                        actions.add(catalog.getAction(name));
+                        break;
+                    case "items":
+                        items.add(catalog.getItem(name));
+                        break;
+                    case "updates":
+                        updates.add(catalog.getMotiveUpdate(name));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown kind of definition: %s", field));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of a decision array, once the actor's actions and items are all in place.
+     */
+    private void readDecision(JsonParser json, Actor actor) throws IOException {
+        int providerIndex = nextInt(json);
+        ActionProvider provider = null;
+        Action action = null;
+        if (providerIndex != NONE) {
+            if (providerIndex == OWN) {
+                provider = actor;
+            } else if (providerIndex == DETACHED) {
+                provider = lookUp(items, nextInt(json), "item").copy(nextInt(json));
+            } else {
+                Item[] owned = actor.getItems().toArray(new Item[0]);
+                if (providerIndex < 0 || providerIndex >= owned.length) {
+                    throw new IllegalArgumentException(String.format("%s's saved decision is offered by item #%d, but it only owns %d items",
+                            actor.getName(), providerIndex, owned.length));
+                }
+                provider = owned[providerIndex];
+            }
+            Action[] offered = provider.getCandidateActions(actor);
+            int actionIndex = nextInt(json);
+            if (actionIndex < 0 || actionIndex >= offered.length) {
+                throw new IllegalArgumentException(String.format("%s's saved decision is action #%d of %s, which only has %d actions",
+                        actor.getName(), actionIndex, provider, offered.length));
+            }
+            action = offered[actionIndex];
+        }
+        actor.restoreDecision(provider, action, nextDouble(json), nextInt(json));
+        expect(json.nextToken(), JsonToken.END_ARRAY, "the end of " + actor.getName() + "'s decision");
+    }
+
+    private Motive motive(JsonParser json) throws IOException {
+        return lookUp(motives, json.getIntValue(), "motive");
+    }
+
+    private static <T> T lookUp(List<T> defined, int id, String kind) {
+        if (id < 0 || id >= defined.size()) {
+            throw new IllegalArgumentException(String.format("No %s has been defined with id %d", kind, id));
+        }
+        return defined.get(id);
+    }
+
+    private static int nextInt(JsonParser json) throws IOException {
+        json.nextToken();
+        return json.getIntValue();
+    }
+
+    private static long nextLong(JsonParser json) throws IOException {
+        json.nextToken();
+        return json.getLongValue();
+    }
+
+    private static double nextDouble(JsonParser json) throws IOException {
+        json.nextToken();
+        return json.getDoubleValue();
+    }
+
+    private static void startArray(JsonParser json, JsonToken token, String field) {
+        expect(token, JsonToken.START_ARRAY, "an array of " + field);
+    }
+
+    static void expect(JsonToken token, JsonToken expected, String what) {
+        if (token != expected) {
+            throw new IllegalArgumentException(String.format("Expected %s (%s), but found %s", what, expected, token));
+        }
+    }
+
+    /**
+     * Writes actors in the format above. Each actor written is self-contained, so anything written can be read on
+     * its own.
+     */
+    static class Serializer extends StdSerializer<Actor> {
+        private static final long serialVersionUID = 1L;
+
+        private final SnapshotCatalog catalog;
+
+        Serializer(SnapshotCatalog catalog) {
+            super(Actor.class);
+            this.catalog = catalog;
+        }
+
+        @Override
+        public void serialize(Actor actor, JsonGenerator json, SerializerProvider provider) throws IOException {
+            new ActorJson(catalog).write(actor, actor.getRemainingActionTicks(), json);
+        }
+    }
+
+    static class Deserializer extends StdDeserializer<Actor> {
+        private static final long serialVersionUID = 1L;
+
+        private final SnapshotCatalog catalog;
+
+        Deserializer(SnapshotCatalog catalog) {
+            super(Actor.class);
+            this.catalog = catalog;
+        }
+
+        @Override
+        public Actor deserialize(JsonParser json, DeserializationContext context) throws IOException {
+            return new ActorJson(catalog).read(json);
+        }
+    }
+}
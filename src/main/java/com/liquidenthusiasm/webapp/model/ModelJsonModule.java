@@ -0,0 +1,18 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Teaches an {@code ObjectMapper} to read and write {@link Actor}s in the compact format of {@link ActorJson},
+ * resolving their motives, actions, items and motive updates by name through a {@link SnapshotCatalog}. Ability
+ * maps need no module, since {@link AbilityMap} names its own serializers.
+ */
+public class ModelJsonModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    public ModelJsonModule(SnapshotCatalog catalog) {
+        super("ModelJsonModule");
+        addSerializer(Actor.class, new ActorJson.Serializer(catalog));
+        addDeserializer(Actor.class, new ActorJson.Deserializer(catalog));
+    }
+}
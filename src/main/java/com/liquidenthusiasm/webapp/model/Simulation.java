@@ -0,0 +1,93 @@
+package com.liquidenthusiasm.webapp.model;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a world in the background, one tick every so often, publishing its state to a {@link WorldFeed} after each
+ * tick. All ticks run on the simulation's own thread, so nothing else may tick the world while it is running.
+ * <p>
+ * A tick that throws an exception is logged and counted, and the simulation carries on with the next one. An
+ * error stops the simulation, and it no longer reports itself as running.
+ */
+public class Simulation implements AutoCloseable {
+    private static final Log log = LogFactory.getLog(Simulation.class);
+
+    private final World world;
+    private final WorldFeed feed;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "simulation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong failedTicks = new AtomicLong();
+    private ScheduledFuture<?> running;
+
+    public Simulation(World world) {
+        this.world = world;
+        this.feed = new WorldFeed(world);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public WorldFeed getFeed() {
+        return feed;
+    }
+
+    /**
+     * Starts ticking the world, or changes how often it ticks if it is already running.
+     */
+    public synchronized void start(long tickInterval, TimeUnit unit) {
+        if (tickInterval < 1) {
+            throw new IllegalArgumentException("Tick interval must be at least 1, but got " + tickInterval);
+        }
+        stop();
+        running = ticker.scheduleAtFixedRate(this::tick, 0, tickInterval, unit);
+    }
+
+    /**
+     * Stops ticking after the tick in progress, if any.
+     */
+    public synchronized void stop() {
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * @return how many ticks have failed with an exception since the simulation was made
+     */
+    public long getFailedTicks() {
+        return failedTicks.get();
+    }
+
+    private void tick() {
+        try {
+            world.tick();
+            feed.publish();
+        } catch (RuntimeException e) {
+            failedTicks.incrementAndGet();
+            log.error("Simulation tick " + world.getTick() + " failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        ticker.shutdown();
+        world.close();
+    }
+}
@@ -0,0 +1,130 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveRegistry;
+import com.liquidenthusiasm.webapp.model.motive.MotiveTable;
+import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The definitions a {@link WorldSnapshot} refers to by name: motives, the actions actors know, the items they can
+ * own, and any motive updates other than a {@link ConstantMotiveUpdate}, which are saved by amount instead.
+ * <p>
+ * Snapshots hold only the state of a world, never the behaviour behind it, so the same definitions have to be
+ * in the catalog when a snapshot is read as when it was written. Names must identify definitions: adding a
+ * second, different definition under a name already taken is an error.
+ */
+public class SnapshotCatalog {
+    private final Map<String, Motive> motives = new HashMap<>();
+    private final Map<String, Action> actions = new HashMap<>();
+    private final Map<String, Item> items = new HashMap<>();
+    private final Map<String, MotiveUpdate> motiveUpdates = new HashMap<>();
+    private final Map<MotiveUpdate, String> motiveUpdateNames = new IdentityHashMap<>();
+
+    /**
+     * @return a catalog of every motive, action and item the given actors currently use
+     */
+    public static SnapshotCatalog of(Iterable<Actor> actors) {
+        SnapshotCatalog catalog = new SnapshotCatalog();
+        for (Actor actor : actors) {
+            catalog.addAll(actor);
+        }
+        return catalog;
+    }
+
+    /**
+     * Adds every motive, action and item this actor currently uses.
+     */
+    public SnapshotCatalog addAll(Actor actor) {
+        for (Motive motive : actor.getMotives().keySet()) {
+            motive(motive);
+        }
+        MotiveTable<?> desires = actor.desireTable();
+        for (int i = 0; i < desires.capacity(); i++) {
+            if (desires.get(i) != null) {
+                motive(MotiveRegistry.get(i));
+            }
+        }
+        for (Action action : actor.getActions(actor)) {
+            action(action);
+        }
+        for (Item item : actor.getItems()) {
+            if (!items.containsKey(item.getName())) {
+                item(item);
+            }
+        }
+        return this;
+    }
+
+    public SnapshotCatalog motive(Motive motive) {
+        put(motives, "motive", motive.getName(), motive);
+        return this;
+    }
+
+    public SnapshotCatalog action(Action action) {
+        put(actions, "action", action.getName(), action);
+        return this;
+    }
+
+    /**
+     * Adds an item to restore owned items from. Items with a limited number of uses are restored as copies of it,
+     * with the uses they had when saved; items with infinite uses are shared, just as {@link Item#copy()} does.
+     */
+    public SnapshotCatalog item(Item item) {
+        put(items, "item", item.getName(), item);
+        return this;
+    }
+
+    public SnapshotCatalog motiveUpdate(String name, MotiveUpdate motiveUpdate) {
+        put(motiveUpdates, "motive update", name, motiveUpdate);
+        motiveUpdateNames.put(motiveUpdate, name);
+        return this;
+    }
+
+    private static <T> void put(Map<String, T> definitions, String kind, String name, T definition) {
+        if (name == null) {
+            throw new IllegalArgumentException(String.format("May not add a %s without a name to a snapshot catalog: %s", kind, definition));
+        }
+        T existing = definitions.putIfAbsent(name, definition);
+        if (existing != null && existing != definition) {
+            throw new IllegalArgumentException(String.format("The snapshot catalog already has a different %s named '%s'", kind, name));
+        }
+    }
+
+    Motive getMotive(String name) {
+        return get(motives, "motive", name);
+    }
+
+    Action getAction(String name) {
+        return get(actions, "action", name);
+    }
+
+    Item getItem(String name) {
+        return get(items, "item", name);
+    }
+
+    MotiveUpdate getMotiveUpdate(String name) {
+        return get(motiveUpdates, "motive update", name);
+    }
+
+    /**
+     * @return the name this motive update was added under, or null if it was not added
+     */
+    String getMotiveUpdateName(MotiveUpdate motiveUpdate) {
+        return motiveUpdateNames.get(motiveUpdate);
+    }
+
+    private static <T> T get(Map<String, T> definitions, String kind, String name) {
+        T definition = definitions.get(name);
+        if (definition == null) {
+            throw new IllegalArgumentException(String.format("The snapshot catalog has no %s named '%s'", kind, name));
+        }
+        return definition;
+    }
+}
@@ -0,0 +1,153 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a world looked like at the end of one tick: every actor's motives, the action it chose and how long that
+ * action has left to run, and the world's action counters. Frames are copies, so they can be written out on
+ * another thread while the world carries on ticking.
+ */
+public final class TickFrame {
+    private final long tick;
+    private final long tickNanos;
+    private final ActorState[] actors;
+    private final Map<String, Long> actionCounts;
+
+    private TickFrame(long tick, long tickNanos, ActorState[] actors, Map<String, Long> actionCounts) {
+        this.tick = tick;
+        this.tickNanos = tickNanos;
+        this.actors = actors;
+        this.actionCounts = actionCounts;
+    }
+
+    /**
+     * Copies the world's state. Must not be called while the world is ticking.
+     */
+    public static TickFrame capture(World world) {
+        List<Actor> worldActors = world.getActors();
+        ActorState[] actors = new ActorState[worldActors.size()];
+        for (int i = 0; i < actors.length; i++) {
+            Actor actor = worldActors.get(i);
+            Map<Motive, Double> motives = actor.getMotives();
+            String[] motiveNames = new String[motives.size()];
+            double[] motiveValues = new double[motives.size()];
+            int m = 0;
+            for (Map.Entry<Motive, Double> entry : motives.entrySet()) {
+                motiveNames[m] = entry.getKey().getName();
+                motiveValues[m++] = entry.getValue();
+            }
+            Action action = actor.getDecidedAction();
+            actors[i] = new ActorState(actor.getName(), action == null ? null : action.getName(),
+                    world.remainingActionTicks(i), motiveNames, motiveValues);
+        }
+        return new TickFrame(world.getTick(), world.getLastTickNanos(), actors,
+                Collections.unmodifiableMap(world.getActionLogger().actionCounts()));
+    }
+
+    /**
+     * @return the number of ticks the world had run when this frame was captured
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public int getActorCount() {
+        return actors.length;
+    }
+
+    public String getActorName(int actor) {
+        return actors[actor].name;
+    }
+
+    /**
+     * @return the name of the action the actor last chose, or null if it hasn't chosen one
+     */
+    public String getAction(int actor) {
+        return actors[actor].action;
+    }
+
+    public int getRemainingActionTicks(int actor) {
+        return actors[actor].remainingTicks;
+    }
+
+    /**
+     * @return the value of the named motive, or NaN if the actor doesn't have it
+     */
+    public double getMotive(int actor, String motive) {
+        ActorState state = actors[actor];
+        for (int i = 0; i < state.motiveNames.length; i++) {
+            if (state.motiveNames[i].equals(motive)) {
+                return state.motiveValues[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    public Map<String, Long> getActionCounts() {
+        return actionCounts;
+    }
+
+    /**
+     * Writes this frame as one JSON object, field by field, without building a tree of it first.
+     *
+     * @param droppedFrames how many frames the reader has missed so far, which is written along with the frame
+     */
+    public void writeTo(JsonGenerator json, long droppedFrames) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("tick", tick);
+        json.writeNumberField("tickNanos", tickNanos);
+        json.writeNumberField("droppedFrames", droppedFrames);
+        json.writeArrayFieldStart("actors");
+        for (ActorState actor : actors) {
+            json.writeStartObject();
+            json.writeStringField("name", actor.name);
+            if (actor.action == null) {
+                json.writeNullField("action");
+            } else {
+                json.writeStringField("action", actor.action);
+            }
+            json.writeNumberField("remainingTicks", actor.remainingTicks);
+            json.writeObjectFieldStart("motives");
+            for (int i = 0; i < actor.motiveNames.length; i++) {
+                json.writeNumberField(actor.motiveNames[i], actor.motiveValues[i]);
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeObjectFieldStart("actionCounts");
+        for (Map.Entry<String, Long> entry : actionCounts.entrySet()) {
+            json.writeNumberField(entry.getKey(), entry.getValue());
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static final class ActorState {
+        private final String name;
+        private final String action;
+        private final int remainingTicks;
+        private final String[] motiveNames;
+        private final double[] motiveValues;
+
+        private ActorState(String name, String action, int remainingTicks, String[] motiveNames,
+                           double[] motiveValues) {
+            this.name = name;
+            this.action = action;
+            this.remainingTicks = remainingTicks;
+            this.motiveNames = motiveNames;
+            this.motiveValues = motiveValues;
+        }
+    }
+}
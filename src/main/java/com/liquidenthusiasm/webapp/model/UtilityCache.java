@@ -0,0 +1,118 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the utility an actor last computed for each action, and when it was computed.
+ * <p>
+ * Time is measured by a per-actor clock that ticks every time one of the actor's motive values, desires or
+ * weights changes, and each motive records the clock value of its last change. A cached utility stays valid as
+ * long as none of the motives its action touches has changed since, and the action still offers the same
+ * compiled motive changes and completion time. Not thread safe; each actor owns its own cache.
+ */
+public class UtilityCache {
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Action, Entry> entries = new IdentityHashMap<>();
+    private long clock = 0;
+    private long[] changedAt = EMPTY;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Records that the motive with this ordinal changed, making every cached utility that depends on it stale.
+     */
+    public void motiveChanged(int ordinal) {
+        if (ordinal >= changedAt.length) {
+            changedAt = Arrays.copyOf(changedAt, ordinal + 1);
+        }
+        changedAt[ordinal] = ++clock;
+    }
+
+    /**
+     * Throws away every cached utility, e.g. because something every action depends on has changed.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Finds the cache entry for this action, creating an empty one the first time the action is seen.
+     * Counts a hit if the entry holds a utility that is still valid for these changes and completion time.
+     */
+    Entry lookup(Action action, MotiveVector changes, int completionTime) {
+        Entry entry = entries.get(action);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(action, entry);
+        }
+        if (entry.changes != changes || entry.completionTime != completionTime || isStale(entry)) {
+            misses++;
+            entry.valid = false;
+        } else {
+            hits++;
+            entry.valid = true;
+        }
+        return entry;
+    }
+
+    void store(Entry entry, MotiveVector changes, int completionTime, double utility) {
+        entry.changes = changes;
+        entry.completionTime = completionTime;
+        entry.computedAt = clock;
+        entry.utility = utility;
+    }
+
+    private boolean isStale(Entry entry) {
+        MotiveVector changes = entry.changes;
+        for (int i = 0; i < changes.size(); i++) {
+            int ordinal = changes.ordinal(i);
+            if (ordinal < changedAt.length && changedAt[ordinal] > entry.computedAt) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the fraction of lookups that were answered from the cache, or 0 if there have been none
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    static final class Entry {
+        private MotiveVector changes;
+        private int completionTime;
+        private long computedAt;
+        private double utility;
+        private boolean valid;
+
+        boolean isValid() {
+            return valid;
+        }
+
+        double getUtility() {
+            return utility;
+        }
+    }
+}
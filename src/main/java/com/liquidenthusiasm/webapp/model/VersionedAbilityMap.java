@@ -0,0 +1,84 @@
+package com.liquidenthusiasm.webapp.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * An {@link AbilityMap} that can be edited while other threads read it.
+ * <p>
+ * Readers take the current {@link AbilityMapSnapshot} and read it without any locking, so reads scale with the
+ * number of cores and never wait for a writer. Writers make their changes to a private copy of the current map,
+ * as one batch, and publish the result as the next snapshot in a single atomic step: a reader sees either all of a
+ * batch or none of it. Copying costs time in proportion to the size of the map, so make many changes in one batch
+ * rather than one batch per change. Writers take turns, so no batch is lost to another written at the same time.
+ */
+public class VersionedAbilityMap {
+    private final AtomicReference<AbilityMapSnapshot> current;
+    private final Object writeLock = new Object();
+
+    public VersionedAbilityMap() {
+        this(new AbilityMap());
+    }
+
+    /**
+     * @param initial the relationships to start with, which are copied
+     */
+    public VersionedAbilityMap(AbilityMap initial) {
+        current = new AtomicReference<>(new AbilityMapSnapshot(initial.copy(), 0));
+    }
+
+    /**
+     * @return the latest published snapshot
+     */
+    public AbilityMapSnapshot snapshot() {
+        return current.get();
+    }
+
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * Reads one relationship from the latest snapshot. To read several that must agree with each other, take a
+     * {@link #snapshot()} and read them all from that.
+     */
+    public int getRelationship(String ability1, String ability2) {
+        return current.get().getRelationship(ability1, ability2);
+    }
+
+    /**
+     * Applies a batch of edits to a copy of the latest snapshot's map and publishes the result. If the edits throw,
+     * nothing is published.
+     * <p>
+     * The map handed to the edits is the one that gets published, so it must not be kept once they return; it is
+     * frozen on publication, and any later attempt to change it throws {@link IllegalStateException}.
+     *
+     * @return the snapshot published
+     */
+    public AbilityMapSnapshot edit(Consumer<AbilityMap> edits) {
+        synchronized (writeLock) {
+            AbilityMapSnapshot latest = current.get();
+            AbilityMap next = latest.toAbilityMap();
+            edits.accept(next);
+            AbilityMapSnapshot published = new AbilityMapSnapshot(next, latest.getVersion() + 1);
+            current.set(published);
+            return published;
+        }
+    }
+
+    /**
+     * Publishes a copy of the given map in place of the current relationships.
+     */
+    public AbilityMapSnapshot replace(AbilityMap map) {
+        AbilityMap copy = map.copy();
+        synchronized (writeLock) {
+            AbilityMapSnapshot published = new AbilityMapSnapshot(copy, current.get().getVersion() + 1);
+            current.set(published);
+            return published;
+        }
+    }
+
+    public AbilityMapSnapshot addRelationship(String ability1, String ability2, int relativePower) {
+        return edit(map -> map.addRelationship(ability1, ability2, relativePower));
+    }
+}
@@ -0,0 +1,406 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+import com.liquidenthusiasm.webapp.model.trace.DecisionTracer;
+import com.liquidenthusiasm.webapp.util.CounterRandom;
+import com.liquidenthusiasm.webapp.util.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Owns a population of actors and advances all of them one tick at a time.
+ * <p>
+ * Each tick runs the same update/consider/perform cycle for every actor that a single actor goes through
+ * when driven by hand, but splits the population into chunks that are processed on a fork/join pool.
+ * Actors must not be added or removed while a tick is in progress. Every world counts its actors' actions in
+ * its own {@link ActionLogger}, which doesn't print them.
+ * <p>
+ * An actor that starts an action lasting several ticks is parked on a timer wheel until the tick the action
+ * completes on: its motives keep updating, but it is not asked to consider or perform anything in between.
+ * Removing one of its items or actions wakes it early, so the action is re-checked on the next tick as usual.
+ * Other changes that make the action invalid, such as a validity check that starts failing, are only noticed
+ * when the action comes due. An actor added part way through such an action is parked straight away.
+ * <p>
+ * Every actor draws its random numbers from its own {@link CounterRandom} stream, numbered off the world's seed in
+ * the order actors are added. An actor's stream is only used on the thread ticking that actor, so two worlds built
+ * the same way with the same seed make exactly the same choices, however many threads either runs on. A stream is
+ * saved as its key and draw count, so a restored world carries on with the same numbers the original would have.
+ * <p>
+ * A world's {@link AbilityMap} is held as a {@link VersionedAbilityMap}, so request threads can read it while an
+ * admin edits it. A world can be saved to and restored from a {@link WorldSnapshot}.
+ */
+public class World implements AutoCloseable {
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    private final List<Actor> actors = new ArrayList<>();
+    private final List<ActorSlot> slots = new ArrayList<>();
+    private TimerWheel<ActorSlot> parkedActors = new TimerWheel<>();
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private DecisionTracer decisionTracer;
+    private ActionLogger actionLogger = new ActionLogger(false);
+    private final VersionedAbilityMap abilityMap = new VersionedAbilityMap();
+    private long seed;
+    private long streams = 0;
+    private long tick = 0;
+    private long totalTickNanos = 0;
+    private long lastTickNanos = 0;
+
+    public World() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public World(int parallelism) {
+        this(parallelism, new SplittableRandom().nextLong());
+    }
+
+    public World(int parallelism, long seed) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, but got " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        setSeed(seed);
+    }
+
+    public void addActor(Actor actor) {
+        addActor(actor, true);
+    }
+
+    /**
+     * Adds an actor restored from a snapshot, keeping the random stream it was saved with if it has one.
+     */
+    void restoreActor(Actor actor) {
+        addActor(actor, actor.getRandom() == null);
+    }
+
+    private void addActor(Actor actor, boolean newStream) {
+        if (actor == null) {
+            throw new IllegalArgumentException("May not add a null actor to the world");
+        }
+        if (decisionTracer != null) {
+            actor.setDecisionTracer(decisionTracer);
+        }
+        actor.setActionLogger(actionLogger);
+        if (newStream) {
+            actor.setRandom(CounterRandom.stream(seed, streams++));
+        }
+        ActorSlot slot = new ActorSlot(actor);
+        actor.setActionInvalidationListener(slot);
+        actors.add(actor);
+        slots.add(slot);
+        int remaining = actor.getRemainingActionTicks();
+        if (remaining > 1) {
+            park(slot, tick + remaining - 1);
+        }
+    }
+
+    public boolean removeActor(Actor actor) {
+        int index = actors.indexOf(actor);
+        if (index < 0) {
+            return false;
+        }
+        ActorSlot slot = slots.remove(index);
+        actors.remove(index);
+        synchronized (parkedActors) {
+            parkedActors.cancel(slot.timer);
+        }
+        actor.setActionInvalidationListener(null);
+        actor.setActionLogger(null);
+        return true;
+    }
+
+    public List<Actor> getActors() {
+        return Collections.unmodifiableList(actors);
+    }
+
+    /**
+     * Attaches a decision tracer to every actor in the world, and to any actor added later.
+     * Pass null to turn tracing off again.
+     */
+    public void setDecisionTracer(DecisionTracer decisionTracer) {
+        this.decisionTracer = decisionTracer;
+        for (Actor actor : actors) {
+            actor.setDecisionTracer(decisionTracer);
+        }
+    }
+
+    public DecisionTracer getDecisionTracer() {
+        return decisionTracer;
+    }
+
+    public ActionLogger getActionLogger() {
+        return actionLogger;
+    }
+
+    /**
+     * Replaces the logger the world's actors count their actions in, e.g. to share one between worlds.
+     */
+    public void setActionLogger(ActionLogger actionLogger) {
+        if (actionLogger == null) {
+            throw new IllegalArgumentException("May not set a null action logger on the world");
+        }
+        this.actionLogger = actionLogger;
+        for (Actor actor : actors) {
+            actor.setActionLogger(actionLogger);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Reseeds the world, giving every actor already in it a fresh stream off the new seed, in order, just as if the
+     * seed had been set before they were added.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.streams = 0;
+        for (Actor actor : actors) {
+            actor.setRandom(CounterRandom.stream(seed, streams++));
+        }
+    }
+
+    /**
+     * @return how many random streams have been handed out since the seed was set; the next actor added gets the
+     * stream with this number
+     */
+    public long getStreamCount() {
+        return streams;
+    }
+
+    void restoreStreamCount(long streams) {
+        if (streams < 0) {
+            throw new IllegalArgumentException("Stream count must not be negative, but got " + streams);
+        }
+        this.streams = streams;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but got " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Advances every actor in the world by a single tick.
+     */
+    public void tick() {
+        long start = System.nanoTime();
+        actionLogger.setTick(tick);
+        if (pool == null || actors.size() <= chunkSize) {
+            tickRange(0, actors.size());
+        } else {
+            pool.invoke(new TickTask(0, actors.size()));
+        }
+        tick++;
+        synchronized (parkedActors) {
+            parkedActors.advance(this::unpark);
+        }
+        lastTickNanos = System.nanoTime() - start;
+        totalTickNanos += lastTickNanos;
+    }
+
+    public void run(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    private void tickRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            tickActor(slots.get(i));
+        }
+    }
+
+    private void tickActor(ActorSlot slot) {
+        Actor actor = slot.actor;
+        actor.update();
+        if (slot.parked) {
+            return;
+        }
+        actor.considerNextAction();
+        actor.performNextAction();
+        int remaining = actor.getRemainingActionTicks();
+        if (remaining > 1) {
+            park(slot, tick + remaining);
+        }
+    }
+
+    /**
+     * Parks an actor until the tick its action completes on, which is {@code tick} when the deadline is reached.
+     */
+    private void park(ActorSlot slot, long deadline) {
+        synchronized (parkedActors) {
+            slot.parked = true;
+            parkedActors.schedule(slot.timer, deadline);
+        }
+    }
+
+    /**
+     * Called with the lock on the timer wheel held, when a parked actor's action comes due.
+     */
+    private void unpark(ActorSlot slot) {
+        slot.parked = false;
+        slot.actor.resumeLongAction(1);
+    }
+
+    /**
+     * @return the number of actors currently parked part way through a multi-tick action
+     */
+    public int getParkedActorCount() {
+        synchronized (parkedActors) {
+            return parkedActors.size();
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Moves an empty world's clock to the given tick, so a restored world carries on counting where it was saved.
+     */
+    void restoreTick(long tick) {
+        if (!actors.isEmpty()) {
+            throw new IllegalStateException("May only restore the tick of a world with no actors");
+        }
+        this.tick = tick;
+        this.parkedActors = new TimerWheel<>(tick);
+    }
+
+    /**
+     * @return the same as the actor's {@link Actor#getRemainingActionTicks()}, but correct while it is parked too
+     */
+    int remainingActionTicks(int index) {
+        ActorSlot slot = slots.get(index);
+        synchronized (parkedActors) {
+            if (slot.parked) {
+                return (int) (slot.timer.getDeadline() - tick + 1);
+            }
+        }
+        return slot.actor.getRemainingActionTicks();
+    }
+
+    /**
+     * @return the world's ability relationships, which can be read from any thread, without locking, while they are
+     * being edited
+     */
+    public VersionedAbilityMap getAbilityMap() {
+        return abilityMap;
+    }
+
+    /**
+     * Publishes a copy of the given relationships as the world's next version of them.
+     */
+    public void setAbilityMap(AbilityMap abilityMap) {
+        if (abilityMap == null) {
+            throw new IllegalArgumentException("May not set a null ability map on the world");
+        }
+        this.abilityMap.replace(abilityMap);
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * @return the average number of ticks per second over every tick run so far, or 0 if no ticks have run
+     */
+    public double getTicksPerSecond() {
+        if (totalTickNanos == 0) {
+            return 0;
+        }
+        return tick / (totalTickNanos / 1e9d);
+    }
+
+    public long getUtilityCacheHits() {
+        long hits = 0;
+        for (Actor actor : actors) {
+            hits += actor.getUtilityCache().getHits();
+        }
+        return hits;
+    }
+
+    public long getUtilityCacheMisses() {
+        long misses = 0;
+        for (Actor actor : actors) {
+            misses += actor.getUtilityCache().getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * @return the fraction of utility calculations across all actors that were answered from their caches
+     */
+    public double getUtilityCacheHitRate() {
+        long hits = getUtilityCacheHits();
+        long total = hits + getUtilityCacheMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private class ActorSlot implements ActionInvalidationListener {
+        private final Actor actor;
+        private final TimerWheel.Timer<ActorSlot> timer = new TimerWheel.Timer<>(this);
+        private volatile boolean parked = false;
+
+        ActorSlot(Actor actor) {
+            this.actor = actor;
+        }
+
+        @Override
+        public void actionPossiblyInvalidated(Actor actor) {
+            synchronized (parkedActors) {
+                if (parked && parkedActors.cancel(timer)) {
+                    parked = false;
+                    actor.resumeLongAction((int) (timer.getDeadline() - tick + 1));
+                }
+            }
+        }
+    }
+
+    private class TickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TickTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                tickRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickTask(from, mid), new TickTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.liquidenthusiasm.webapp.model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands a {@link TickFrame} of a world to every subscriber after each tick.
+ * <p>
+ * Each subscription holds at most one frame. Publishing a frame replaces any the subscriber hasn't taken yet, so
+ * a slow reader skips straight to the latest state instead of falling further and further behind, and never holds
+ * up the world or the other readers. Skipped frames are counted per subscription. No frame is captured at all
+ * while nobody is subscribed.
+ */
+public class WorldFeed {
+    private final World world;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile TickFrame latest;
+
+    public WorldFeed(World world) {
+        if (world == null) {
+            throw new IllegalArgumentException("May not feed a null world");
+        }
+        this.world = world;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Captures the world's state and offers it to every subscriber. Must be called on the thread ticking the
+     * world, between ticks.
+     */
+    public void publish() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        TickFrame frame = TickFrame.capture(world);
+        latest = frame;
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(frame);
+        }
+    }
+
+    /**
+     * @return a new subscription, which starts with the last frame published, if there was one
+     */
+    public Subscription subscribe() {
+        return subscribe(null);
+    }
+
+    /**
+     * Subscribes a reader that doesn't want to wait in {@link Subscription#take(long, TimeUnit)}. The listener is
+     * run on the thread ticking the world each time a frame is offered, so it should only hand the work of reading
+     * the frame off to another thread.
+     *
+     * @return a new subscription, which starts with the last frame published, if there was one
+     */
+    public Subscription subscribe(Runnable listener) {
+        Subscription subscription = new Subscription(this, listener);
+        TickFrame frame = latest;
+        if (frame != null) {
+            subscription.pending.set(frame);
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public static final class Subscription implements AutoCloseable {
+        private final WorldFeed feed;
+        private final Runnable listener;
+        private final AtomicReference<TickFrame> pending = new AtomicReference<>();
+        private final AtomicLong droppedFrames = new AtomicLong();
+        private volatile boolean closed = false;
+
+        private Subscription(WorldFeed feed, Runnable listener) {
+            this.feed = feed;
+            this.listener = listener;
+        }
+
+        private void offer(TickFrame frame) {
+            if (pending.getAndSet(frame) != null) {
+                droppedFrames.incrementAndGet();
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+            if (listener != null) {
+                listener.run();
+            }
+        }
+
+        /**
+         * @return the newest frame not yet taken, or null if there is none
+         */
+        public TickFrame poll() {
+            return pending.getAndSet(null);
+        }
+
+        /**
+         * Waits for a frame newer than the last one taken.
+         *
+         * @return the newest frame, or null if none was published in time or the subscription was closed
+         */
+        public TickFrame take(long timeout, TimeUnit unit) throws InterruptedException {
+            TickFrame frame = poll();
+            if (frame != null) {
+                return frame;
+            }
+            long start = System.nanoTime();
+            long wait = unit.toNanos(timeout);
+            synchronized (this) {
+                while ((frame = poll()) == null && !closed) {
+                    long left = wait - (System.nanoTime() - start);
+                    if (left <= 0) {
+                        return null;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            }
+            return frame;
+        }
+
+        /**
+         * @return how many frames were replaced by newer ones before this subscriber took them
+         */
+        public long getDroppedFrames() {
+            return droppedFrames.get();
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Stops receiving frames, and wakes a reader waiting in {@link #take(long, TimeUnit)}.
+         */
+        @Override
+        public void close() {
+            feed.subscriptions.remove(this);
+            closed = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Exports a whole {@link World} as JSON and imports it again, holding the same state as a {@link WorldSnapshot}.
+ * <p>
+ * The world is written and read a token at a time, one actor after another, so no tree of the document is ever
+ * built and even a world of millions of actors needs no more memory than the actors themselves. Actors are
+ * written by a single {@link ActorJson} codec, so each motive, action, item and motive update is named once, where
+ * it is first used, and referred to by id everywhere else:
+ * <pre>
+ * {"version": 2, "tick": 120, "seed": 42, "streams": 1000, "abilityMap": {...}, "actors": [{...}, ...]}
+ * </pre>
+ * where {@code streams} is how many random streams the world has handed out. The tick and seed must come before
+ * the actors. Actors keep the random streams they were saved with, so an imported world breaks ties exactly as
+ * the exported one would have gone on to; an actor saved without one gets a fresh stream off the seed.
+ */
+public final class WorldJson {
+    static final int VERSION = 2;
+    private static final JsonFactory factory = new JsonFactory();
+
+    private WorldJson() {
+    }
+
+    /**
+     * Writes the world to the stream, which is left open. Every motive, action, item and motive update (other
+     * than a {@link com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate}) the world's actors use must be
+     * in the catalog, so the export can be read back with it.
+     */
+    public static void write(World world, SnapshotCatalog catalog, OutputStream out) throws IOException {
+        JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        write(world, catalog, json);
+        json.close();
+    }
+
+    public static void write(World world, SnapshotCatalog catalog, JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("version", VERSION);
+        json.writeNumberField("tick", world.getTick());
+        json.writeNumberField("seed", world.getSeed());
+        json.writeNumberField("streams", world.getStreamCount());
+        json.writeFieldName("abilityMap");
+        AbilityMapJson.write(world.getAbilityMap().snapshot().map(), json);
+        json.writeArrayFieldStart("actors");
+        ActorJson actorJson = new ActorJson(catalog);
+        List<Actor> actors = world.getActors();
+        for (int i = 0; i < actors.size(); i++) {
+            actorJson.write(actors.get(i), world.remainingActionTicks(i), json);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.flush();
+    }
+
+    public static World read(InputStream in, SnapshotCatalog catalog) throws IOException {
+        return read(in, catalog, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports a world written by {@link #write}, resolving its definitions through the catalog. The stream is
+     * left open.
+     *
+     * @param parallelism the parallelism of the imported world, as for {@link World#World(int)}
+     */
+    public static World read(InputStream in, SnapshotCatalog catalog, int parallelism) throws IOException {
+        JsonParser json = factory.createParser(in);
+        json.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        json.nextToken();
+        World world = read(json, catalog, parallelism);
+        json.close();
+        return world;
+    }
+
+    /**
+     * Reads a world, starting at its {@link JsonToken#START_OBJECT} and finishing on its {@link JsonToken#END_OBJECT}.
+     */
+    public static World read(JsonParser json, SnapshotCatalog catalog, int parallelism) throws IOException {
+        ActorJson.expect(json.getCurrentToken(), JsonToken.START_OBJECT, "a world");
+        Long tick = null;
+        Long seed = null;
+        Long streams = null;
+        AbilityMap abilityMap = null;
+        World world = null;
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.getCurrentName();
+            JsonToken value = json.nextToken();
+            switch (field) {
+                case "version":
+                    if (json.getIntValue() != VERSION) {
+                        throw new IllegalArgumentException(String.format("This is a version %d world export, but only version %d can be read",
+                                json.getIntValue(), VERSION));
+                    }
+                    break;
+                case "tick":
+                    tick = json.getLongValue();
+                    break;
+                case "seed":
+                    seed = json.getLongValue();
+                    break;
+                case "streams":
+                    streams = json.getLongValue();
+                    break;
+                case "abilityMap":
+                    abilityMap = AbilityMapJson.read(json);
+                    break;
+                case "actors":
+                    ActorJson.expect(value, JsonToken.START_ARRAY, "an array of actors");
+                    if (world != null) {
+                        throw new IllegalArgumentException("A world export may only hold one array of actors");
+                    }
+                    world = emptyWorld(tick, seed, parallelism);
+                    ActorJson actorJson = new ActorJson(catalog);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        world.restoreActor(actorJson.read(json));
+                    }
+                    break;
+                default:
+                    json.skipChildren();
+            }
+        }
+        ActorJson.expect(json.getCurrentToken(), JsonToken.END_OBJECT, "the end of the world");
+        if (world == null) {
+            world = emptyWorld(tick, seed, parallelism);
+        }
+        if (abilityMap != null) {
+            world.setAbilityMap(abilityMap);
+        }
+        if (streams != null) {
+            world.restoreStreamCount(streams);
+        }
+        return world;
+    }
+
+    private static World emptyWorld(Long tick, Long seed, int parallelism) {
+        if (tick == null || seed == null) {
+            throw new IllegalArgumentException("A world export's tick and seed must come before its actors");
+        }
+        World world = new World(parallelism, seed);
+        world.restoreTick(tick);
+        return world;
+    }
+}
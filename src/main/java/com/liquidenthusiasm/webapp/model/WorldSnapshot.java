@@ -0,0 +1,641 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionProvider;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Desire;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveRegistry;
+import com.liquidenthusiasm.webapp.model.motive.MotiveTable;
+import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.MotiveValues;
+import com.liquidenthusiasm.webapp.util.CounterRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Saves a whole {@link World} to a compact binary file, and restores it from one.
+ * <p>
+ * A snapshot holds every actor's motives, desires, motive weights, motive updates, actions, items (with their
+ * uses) and current decision, including how far through a multi-tick action it is, plus the world's tick and
+ * {@link AbilityMap}. Motives, actions, items, motive updates and abilities are written as small ids into
+ * per-kind name tables, and are turned back into definitions by name through a {@link SnapshotCatalog}.
+ * Each actor's random number stream is saved as its key and how many numbers have been drawn from it, and the
+ * world's seed with how many streams it has handed out, so a restored world breaks ties exactly as the original
+ * would have gone on to. Tracers, planners, loggers and utility caches are not saved.
+ * <p>
+ * Everything is little-endian. The file starts with a {@value #HEADER_SIZE} byte header:
+ * <pre>
+ *  0  int  {@link #MAGIC}
+ *  4  int  {@link #VERSION}
+ *  8  long tick
+ * 16  long actor count
+ * 24  long offset of the name tables
+ * 32  long offset of the block index
+ * 40  long seed
+ * 48  long random streams handed out
+ * 56  int  block count
+ * 60  int  unused
+ * </pre>
+ * Actors follow in blocks of roughly {@link #BLOCK_SIZE} bytes, each an (int actor count, int byte length)
+ * header followed by that many actor records; see {@link Writer#writeActor} for the record layout. After the
+ * blocks come the name tables for motives, actions, items and motive updates (each an int count followed by
+ * strings), the ability map as an int count of (int ability, int ability, int power of the first against the
+ * second) relationships followed by the name table for abilities, and finally the block index as (long offset,
+ * int byte length, int actor count) per block. Strings are an int byte length, -1 for null, and that many bytes
+ * of UTF-8.
+ * <p>
+ * Snapshots are read through memory-mapped windows of up to {@link #WINDOW_SIZE} bytes, and the blocks are
+ * decoded in parallel, so restoring even a very large world costs little more than building its actors.
+ */
+public final class WorldSnapshot {
+    static final int MAGIC = 0x53444C57;
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 64;
+    static final int BLOCK_SIZE = 1 << 20;
+    static final long WINDOW_SIZE = 1L << 30;
+
+    static final int NONE = -1;
+    static final int OWN = -2;
+    static final int DETACHED = -3;
+    static final byte CONSTANT_UPDATE = 0;
+    static final byte NAMED_UPDATE = 1;
+
+    private WorldSnapshot() {
+    }
+
+    /**
+     * Writes the world to the file, replacing anything already there. Every motive, action, item and motive update
+     * (other than a {@link ConstantMotiveUpdate}) the world's actors use must be in the catalog, so the snapshot
+     * can be read back with it.
+     */
+    public static void write(World world, SnapshotCatalog catalog, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            new Writer(catalog, channel).write(world);
+        }
+    }
+
+    public static World read(File file, SnapshotCatalog catalog) throws IOException {
+        return read(file, catalog, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Restores a world written by {@link #write}, resolving its definitions through the catalog.
+     *
+     * @param parallelism the parallelism of the restored world, as for {@link World#World(int)}
+     */
+    public static World read(File file, SnapshotCatalog catalog, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new Reader(catalog, channel, file).read(parallelism);
+        }
+    }
+
+    static int indexOf(Object wanted, Object[] candidates) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i] == wanted) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    static int indexOf(Action action, Action[] actions, ActionProvider provider) {
+        int index = indexOf(action, (Object[]) actions);
+        if (index == NONE) {
+            throw new IllegalArgumentException(String.format("Can't save a decision to %s, which %s no longer offers", action.getName(), provider));
+        }
+        return index;
+    }
+
+    /**
+     * @return a motive update changing a motive by this amount, shared with the standard ones where it can be
+     */
+    static MotiveUpdate constantUpdate(double amount) {
+        if (amount == ConstantMotiveUpdate.increaseByOne.getAmount()) {
+            return ConstantMotiveUpdate.increaseByOne;
+        }
+        if (amount == ConstantMotiveUpdate.decreaseByOne.getAmount()) {
+            return ConstantMotiveUpdate.decreaseByOne;
+        }
+        return new ConstantMotiveUpdate(amount);
+    }
+
+    /**
+     * Hands out ids for the names of one kind of definition, in the order they are first seen.
+     */
+    private static final class NameTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int id(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                names.add(name);
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static final class Writer {
+        private final SnapshotCatalog catalog;
+        private final FileChannel channel;
+        private final NameTable motiveNames = new NameTable();
+        private final NameTable actionNames = new NameTable();
+        private final NameTable itemNames = new NameTable();
+        private final NameTable updateNames = new NameTable();
+        private final NameTable abilityNames = new NameTable();
+        private final Map<Action, Integer> actionIds = new IdentityHashMap<>();
+        private final Map<String, Integer> itemIds = new HashMap<>();
+        private int[] motiveIds = new int[0];
+        private final List<long[]> blocks = new ArrayList<>();
+        private ByteBuffer out = ByteBuffer.allocate(BLOCK_SIZE + (BLOCK_SIZE >> 2)).order(ByteOrder.LITTLE_ENDIAN);
+        private int blockActors = 0;
+        private long position = HEADER_SIZE;
+
+        Writer(SnapshotCatalog catalog, FileChannel channel) {
+            this.catalog = catalog;
+            this.channel = channel;
+        }
+
+        void write(World world) throws IOException {
+            List<Actor> actors = world.getActors();
+            for (int i = 0; i < actors.size(); i++) {
+                writeActor(actors.get(i), world.remainingActionTicks(i));
+                blockActors++;
+                if (out.position() >= BLOCK_SIZE) {
+                    flushBlock();
+                }
+            }
+            flushBlock();
+
+            long tablesOffset = position;
+            writeNames(motiveNames);
+            writeNames(actionNames);
+            writeNames(itemNames);
+            writeNames(updateNames);
+            AbilityMapSnapshot abilityMap = world.getAbilityMap().snapshot();
+            ByteBuffer abilities = ByteBuffer.allocate(4 + abilityMap.getRelationshipCount() * 12).order(ByteOrder.LITTLE_ENDIAN);
+            abilities.putInt(abilityMap.getRelationshipCount());
+            abilityMap.forEachRelationship((id1, id2, relativePower) -> abilities.putInt(abilityNames.id(abilityMap.abilityName(id1)))
+                    .putInt(abilityNames.id(abilityMap.abilityName(id2))).putInt(relativePower));
+            abilities.flip();
+            flush(abilities);
+            writeNames(abilityNames);
+
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(blocks.size() * 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (long[] block : blocks) {
+                index.putLong(block[0]).putInt((int) block[1]).putInt((int) block[2]);
+            }
+            index.flip();
+            flush(index);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(world.getTick()).putLong(actors.size())
+                    .putLong(tablesOffset).putLong(indexOffset).putLong(world.getSeed()).putLong(world.getStreamCount()).putInt(blocks.size()).putInt(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+
+        /**
+         * Actor records are laid out as:
+         * <pre>
+         * string name
+         * double foresight
+         * long random stream key, long numbers drawn from it
+         * int n, then n times (int motive, double value)
+         * int n, then n times (int motive, int min, int ideal, int max)        desires
+         * int n, then n times (int motive, double weight)
+         * int n, then n times (int motive, byte kind, double amount or int update)
+         * int n, then n times int action
+         * int n, then n times (int item, int uses)
+         * int provider: {@link #NONE}, {@link #OWN}, an index into the items above, or {@link #DETACHED}
+         *     followed by (int item, int uses) for an item the actor no longer owns
+         * int action index within the provider's actions, unless the provider is {@link #NONE}
+         * double utility
+         * int remaining ticks
+         * </pre>
+         */
+        private void writeActor(Actor actor, int remainingTicks) {
+            putString(actor.getName());
+            CounterRandom random = actor.getRandom();
+            ensure(24);
+            out.putDouble(actor.getForesight()).putLong(random.getKey()).putLong(random.getDraws());
+
+            MotiveValues motives = actor.motiveValues();
+            ensure(4 + motives.size() * 12);
+            out.putInt(motives.size());
+            for (int i = 0; i < motives.capacity(); i++) {
+                if (motives.contains(i)) {
+                    out.putInt(motiveId(i)).putDouble(motives.get(i, 0));
+                }
+            }
+            MotiveTable<Desire> desires = actor.desireTable();
+            ensure(4 + desires.size() * 16);
+            out.putInt(desires.size());
+            for (int i = 0; i < desires.capacity(); i++) {
+                Desire desire = desires.get(i);
+                if (desire != null) {
+                    out.putInt(motiveId(i)).putInt(desire.getMin()).putInt(desire.getIdeal()).putInt(desire.getMax());
+                }
+            }
+            MotiveValues weights = actor.motiveWeightValues();
+            ensure(4 + weights.size() * 12);
+            out.putInt(weights.size());
+            for (int i = 0; i < weights.capacity(); i++) {
+                if (weights.contains(i)) {
+                    out.putInt(motiveId(i)).putDouble(weights.get(i, 1d));
+                }
+            }
+            MotiveTable<MotiveUpdate> updates = actor.motiveUpdateTable();
+            ensure(4 + updates.size() * 13);
+            out.putInt(updates.size());
+            for (int i = 0; i < updates.capacity(); i++) {
+                MotiveUpdate update = updates.get(i);
+                if (update != null) {
+                    out.putInt(motiveId(i));
+                    putMotiveUpdate(update);
+                }
+            }
+
+            List<Action> actions = actor.getActions(actor);
+            ensure(4 + actions.size() * 4);
+            out.putInt(actions.size());
+            for (Action action : actions) {
+                out.putInt(actionId(action));
+            }
+            Item[] items = actor.getItems().toArray(new Item[0]);
+            ensure(4 + items.length * 8);
+            out.putInt(items.length);
+            for (Item item : items) {
+                out.putInt(itemId(item)).putInt(item.getUses());
+            }
+
+            writeDecision(actor, items, remainingTicks);
+        }
+
+        private void writeDecision(Actor actor, Item[] items, int remainingTicks) {
+            ensure(36);
+            Action action = actor.getDecidedAction();
+            ActionProvider provider = actor.getDecidedProvider();
+            if (action == null) {
+                out.putInt(NONE);
+            } else if (provider == actor) {
+                out.putInt(OWN).putInt(indexOf(action, actor.getCandidateActions(actor), provider));
+            } else if (provider instanceof Item) {
+                Item item = (Item) provider;
+                int index = indexOf(item, items);
+                if (index == NONE) {
+                    out.putInt(DETACHED).putInt(itemId(item)).putInt(item.getUses());
+                } else {
+                    out.putInt(index);
+                }
+                out.putInt(indexOf(action, item.getCandidateActions(actor), provider));
+            } else {
+                throw new IllegalArgumentException(String.format("Can't save %s's decision to %s, which was offered by %s rather than the actor or an item",
+                        actor.getName(), action.getName(), provider));
+            }
+            out.putDouble(actor.getDecidedUtility()).putInt(remainingTicks);
+        }
+
+        private void putMotiveUpdate(MotiveUpdate update) {
+            String name = catalog.getMotiveUpdateName(update);
+            if (name != null) {
+                out.put(NAMED_UPDATE).putInt(updateNames.id(name));
+            } else if (update instanceof ConstantMotiveUpdate) {
+                out.put(CONSTANT_UPDATE).putDouble(((ConstantMotiveUpdate) update).getAmount());
+            } else {
+                throw new IllegalArgumentException(String.format("The snapshot catalog has no name for the motive update %s", update));
+            }
+        }
+
+        private int motiveId(int ordinal) {
+            if (ordinal >= motiveIds.length) {
+                int oldLength = motiveIds.length;
+                motiveIds = Arrays.copyOf(motiveIds, Math.max(ordinal + 1, MotiveRegistry.size()));
+                Arrays.fill(motiveIds, oldLength, motiveIds.length, NONE);
+            }
+            int id = motiveIds[ordinal];
+            if (id == NONE) {
+                Motive motive = MotiveRegistry.get(ordinal);
+                if (catalog.getMotive(motive.getName()) != motive) {
+                    throw new IllegalArgumentException(String.format("The snapshot catalog has a different motive named '%s'", motive.getName()));
+                }
+                id = motiveNames.id(motive.getName());
+                motiveIds[ordinal] = id;
+            }
+            return id;
+        }
+
+        private int actionId(Action action) {
+            Integer id = actionIds.get(action);
+            if (id == null) {
+                if (catalog.getAction(action.getName()) != action) {
+                    throw new IllegalArgumentException(String.format("The snapshot catalog has a different action named '%s'", action.getName()));
+                }
+                id = actionNames.id(action.getName());
+                actionIds.put(action, id);
+            }
+            return id;
+        }
+
+        private int itemId(Item item) {
+            Integer id = itemIds.get(item.getName());
+            if (id == null) {
+                catalog.getItem(item.getName());
+                id = itemNames.id(item.getName());
+                itemIds.put(item.getName(), id);
+            }
+            return id;
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensure(4);
+                out.putInt(NONE);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            out.putInt(bytes.length).put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockActors == 0) {
+                return;
+            }
+            int length = out.position();
+            blocks.add(new long[]{position, length, blockActors});
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(blockActors).putInt(length).flip();
+            flush(header);
+            out.flip();
+            flush(out);
+            out.clear();
+            blockActors = 0;
+        }
+
+        private void writeNames(NameTable table) throws IOException {
+            out.clear();
+            ensure(4);
+            out.putInt(table.names.size());
+            for (String name : table.names) {
+                putString(name);
+            }
+            out.flip();
+            flush(out);
+            out.clear();
+        }
+
+        private void flush(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final SnapshotCatalog catalog;
+        private final FileChannel channel;
+        private final File file;
+        private Motive[] motives;
+        private Action[] actions;
+        private Item[] items;
+        private MotiveUpdate[] updates;
+
+        Reader(SnapshotCatalog catalog, FileChannel channel, File file) {
+            this.catalog = catalog;
+            this.channel = channel;
+            this.file = file;
+        }
+
+        World read(int parallelism) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(file + " is too short to be a world snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a world snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("%s is a version %d world snapshot, but only version %d can be read", file, version, VERSION));
+            }
+            long tick = header.getLong();
+            long actorCount = header.getLong();
+            long tablesOffset = header.getLong();
+            long indexOffset = header.getLong();
+            long seed = header.getLong();
+            long streams = header.getLong();
+            int blockCount = header.getInt();
+            if (tablesOffset < HEADER_SIZE || indexOffset < tablesOffset || indexOffset + blockCount * 16L != size) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+
+            ByteBuffer tail = map(tablesOffset, size - tablesOffset);
+            motives = resolve(readNames(tail), new Motive[0], catalog::getMotive);
+            actions = resolve(readNames(tail), new Action[0], catalog::getAction);
+            items = resolve(readNames(tail), new Item[0], catalog::getItem);
+            updates = resolve(readNames(tail), new MotiveUpdate[0], catalog::getMotiveUpdate);
+            int relationCount = tail.getInt();
+            int[] relations = new int[relationCount * 3];
+            for (int i = 0; i < relations.length; i++) {
+                relations[i] = tail.getInt();
+            }
+            String[] abilities = readNames(tail);
+            AbilityMap abilityMap = new AbilityMap();
+            for (int i = 0; i < relations.length; i += 3) {
+                abilityMap.setRelationship(abilities[relations[i]], abilities[relations[i + 1]], relations[i + 2]);
+            }
+
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            int[] counts = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                offsets[i] = tail.getLong();
+                lengths[i] = tail.getInt();
+                counts[i] = tail.getInt();
+            }
+            ByteBuffer[] blocks = mapBlocks(offsets, lengths);
+            Actor[][] decoded = new Actor[blockCount][];
+            try {
+                IntStream.range(0, blockCount).parallel().forEach(i -> decoded[i] = readBlock(blocks[i], counts[i]));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            World world = new World(parallelism, seed);
+            world.restoreTick(tick);
+            world.setAbilityMap(abilityMap);
+            long added = 0;
+            for (Actor[] block : decoded) {
+                for (Actor actor : block) {
+                    world.restoreActor(actor);
+                    added++;
+                }
+            }
+            if (added != actorCount) {
+                throw new IOException(String.format("%s should hold %d actors, but its blocks hold %d", file, actorCount, added));
+            }
+            world.restoreStreamCount(streams);
+            return world;
+        }
+
+        /**
+         * Maps the blocks a window at a time, each window holding as many whole blocks as fit, and hands back a
+         * little-endian view of each block's actor records.
+         */
+        private ByteBuffer[] mapBlocks(long[] offsets, int[] lengths) throws IOException {
+            ByteBuffer[] blocks = new ByteBuffer[offsets.length];
+            int first = 0;
+            while (first < offsets.length) {
+                long start = offsets[first];
+                int last = first;
+                while (last + 1 < offsets.length && offsets[last + 1] + 8 + lengths[last + 1] - start <= WINDOW_SIZE) {
+                    last++;
+                }
+                ByteBuffer window = map(start, offsets[last] + 8 + lengths[last] - start);
+                for (int i = first; i <= last; i++) {
+                    int at = (int) (offsets[i] - start);
+                    ByteBuffer block = window.duplicate();
+                    block.limit(at + 8 + lengths[i]).position(at + 8);
+                    blocks[i] = block.slice().order(ByteOrder.LITTLE_ENDIAN);
+                }
+                first = last + 1;
+            }
+            return blocks;
+        }
+
+        private MappedByteBuffer map(long offset, long length) throws IOException {
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s has a %d byte section, which is too large to map", file, length));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+
+        private Actor[] readBlock(ByteBuffer in, int count) {
+            Actor[] actors = new Actor[count];
+            try {
+                for (int i = 0; i < count; i++) {
+                    actors[i] = readActor(in);
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new UncheckedIOException(new IOException(file + " has a corrupt actor block", e));
+            }
+            return actors;
+        }
+
+        private Actor readActor(ByteBuffer in) {
+            Actor actor = new Actor(getString(in));
+            actor.setForesight(in.getDouble());
+            actor.setRandom(new CounterRandom(in.getLong(), in.getLong()));
+            for (int n = in.getInt(); n > 0; n--) {
+                actor.addMotive(motives[in.getInt()], in.getDouble());
+            }
+            for (int n = in.getInt(); n > 0; n--) {
+                actor.registerDesire(motives[in.getInt()], in.getInt(), in.getInt(), in.getInt());
+            }
+            for (int n = in.getInt(); n > 0; n--) {
+                actor.setMotiveWeight(motives[in.getInt()], in.getDouble());
+            }
+            for (int n = in.getInt(); n > 0; n--) {
+                Motive motive = motives[in.getInt()];
+                actor.registerMotiveUpdate(motive, in.get() == CONSTANT_UPDATE ? constantUpdate(in.getDouble()) : updates[in.getInt()]);
+            }
+            for (int n = in.getInt(); n > 0; n--) {
+                actor.addAction(actions[in.getInt()]);
+            }
+            Item[] owned = new Item[in.getInt()];
+            for (int i = 0; i < owned.length; i++) {
+                owned[i] = items[in.getInt()].copy(in.getInt());
+                actor.addItem(owned[i]);
+            }
+            readDecision(in, actor, owned);
+            return actor;
+        }
+
+        private void readDecision(ByteBuffer in, Actor actor, Item[] owned) {
+            int providerIndex = in.getInt();
+            ActionProvider provider = null;
+            Action action = null;
+            if (providerIndex != NONE) {
+                if (providerIndex == OWN) {
+                    provider = actor;
+                } else if (providerIndex == DETACHED) {
+                    provider = items[in.getInt()].copy(in.getInt());
+                } else {
+                    provider = owned[providerIndex];
+                }
+                Action[] offered = provider.getCandidateActions(actor);
+                int actionIndex = in.getInt();
+                if (actionIndex >= offered.length) {
+                    throw new IllegalArgumentException(String.format("%s's saved decision is action #%d of %s, which only has %d actions",
+                            actor.getName(), actionIndex, provider, offered.length));
+                }
+                action = offered[actionIndex];
+            }
+            actor.restoreDecision(provider, action, in.getDouble(), in.getInt());
+        }
+
+        private static String[] readNames(ByteBuffer in) {
+            String[] names = new String[in.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = getString(in);
+            }
+            return names;
+        }
+
+        private static <T> T[] resolve(String[] names, T[] empty, Function<String, T> lookup) {
+            T[] resolved = Arrays.copyOf(empty, names.length);
+            for (int i = 0; i < names.length; i++) {
+                resolved[i] = lookup.apply(names[i]);
+            }
+            return resolved;
+        }
+
+        private static String getString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length == NONE) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -2,10 +2,11 @@ package com.liquidenthusiasm.webapp.model.action;
 
 import com.liquidenthusiasm.webapp.model.Actor;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveFulfiller;
 
 import java.util.Map;
 
-public interface Action {
+public interface Action extends MotiveFulfiller {
     Map<Motive, Double> getExpectedMotiveFulfillment(Actor actor);
 
     Map<Motive, Double> getActualMotiveFulfillment(Actor actor);
@@ -0,0 +1,26 @@
+package com.liquidenthusiasm.webapp.model.action;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A version number for the shape of every action and item definition: which motives each action changes, and
+ * which actions each item offers. Anything that keeps structures derived from those definitions, such as an
+ * actor's index of actions by motive, compares versions to find out when it has to rebuild them.
+ */
+public final class ActionDefinitions {
+    private static final AtomicLong version = new AtomicLong();
+
+    private ActionDefinitions() {
+    }
+
+    /**
+     * Records that some action or item definition has changed.
+     */
+    public static void changed() {
+        version.incrementAndGet();
+    }
+
+    public static long version() {
+        return version.get();
+    }
+}
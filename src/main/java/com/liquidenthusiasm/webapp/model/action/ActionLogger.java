@@ -1,18 +1,54 @@
 package com.liquidenthusiasm.webapp.model.action;
 
 import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.journal.ActionJournal;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts the actions actors perform, in total and per actor.
+ * <p>
+ * Each simulation can have its own logger: actions log to the logger of the actor performing them (see
+ * {@link #forActor(Actor)}), and fall back to the global {@link #logger} for actors that don't have one.
+ * Counters are {@link LongAdder}s, so actors ticking on different threads can log at the same time without
+ * contending on a lock; the queries add the counters up when they are asked. A logger can also record every
+ * action in an {@link ActionJournal}, for replay and offline analysis.
+ * <p>
+ * With {@link #actionDebuggingOn}, every action is also printed to standard out, which serializes the threads
+ * logging through it. The global logger prints by default; loggers for simulations are usually made without.
+ */
 public class ActionLogger {
     public static ActionLogger logger = new ActionLogger();
-    public boolean actionDebuggingOn = true;
+    /**
+     * What actors and actions without a name are counted under, since the concurrent maps can't hold null keys.
+     */
+    public static final String UNNAMED = "(unnamed)";
+    public volatile boolean actionDebuggingOn = true;
+    private volatile ActionJournal journal;
+    private volatile long tick;
 
-    ActionLogger() {
+    public ActionLogger() {
     }
 
-    final Map<String, Long> actions = new HashMap<>();
-    final Map<String, Map<String, Long>> actorActions = new HashMap<>();
+    public ActionLogger(boolean actionDebuggingOn) {
+        this.actionDebuggingOn = actionDebuggingOn;
+    }
+
+    final ConcurrentMap<String, LongAdder> actions = new ConcurrentHashMap<>();
+    final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> actorActions = new ConcurrentHashMap<>();
+
+    /**
+     * @return the logger the given actor's actions should be counted in: its own if it has one, otherwise the
+     * global logger
+     */
+    public static ActionLogger forActor(Actor actor) {
+        ActionLogger actorLogger = actor == null ? null : actor.getActionLogger();
+        return actorLogger == null ? logger : actorLogger;
+    }
 
     public void log(Actor actor, Action action) {
         log(actor, action, null);
@@ -23,25 +59,24 @@ public class ActionLogger {
     }
 
     public void log(Actor actor, Action action, ActionProvider provider, String msgSuffix) {
+        log(actor, action, provider, null, 0, msgSuffix);
+    }
+
+    /**
+     * Logs an action that changed how many uses of an item the actor holds.
+     */
+    public void log(Actor actor, Action action, ActionProvider provider, Item item, int itemDelta, String msgSuffix) {
         if (msgSuffix == null) {
             msgSuffix = "";
         }
         String actorName = actor.getName();
         String actionName = action.getName();
-        Long count = actions.get(actionName);
-        if (count == null) count = 1l;
-        else count += 1;
-        actions.put(actionName, count);
-
-        Map<String, Long> actorAction = actorActions.get(actorName);
-        if (actorAction == null) {
-            actorAction = new HashMap<>();
-            actorActions.put(actorName, actorAction);
+        count(actorName, actionName);
+        ActionJournal journal = this.journal;
+        if (journal != null) {
+            journal.record(tick, actorName, actionName, provider == null || provider == actor ? null : provider.getName(),
+                    item == null ? null : item.getName(), itemDelta);
         }
-        count = actorAction.get(actionName);
-        if (count == null) count = 1l;
-        else count += 1;
-        actorAction.put(actionName, count);
         if (actionDebuggingOn) {
             if (provider != null && provider != actor) {
                 System.out.printf("ACTION: %s %s %s%s%n", actorName, actionName, provider.getName(), msgSuffix);
@@ -52,9 +87,79 @@ public class ActionLogger {
 
     }
 
+    /**
+     * Journals a change in how many uses of an item the actor holds that is not an action of its own, such as a
+     * use being spent. It is neither counted nor printed, and only kept if there is a journal.
+     */
+    public void logItemChange(Actor actor, Item item, int itemDelta) {
+        ActionJournal journal = this.journal;
+        if (journal != null) {
+            journal.record(tick, actor.getName(), null, null, item.getName(), itemDelta);
+        }
+    }
+
+    /**
+     * Counts one performance of the named action by the named actor, without journaling or printing it.
+     */
+    public void count(String actorName, String actionName) {
+        actorName = key(actorName);
+        actionName = key(actionName);
+        counter(actions, actionName).increment();
+        ConcurrentMap<String, LongAdder> actorAction = actorActions.get(actorName);
+        if (actorAction == null) {
+            actorAction = actorActions.computeIfAbsent(actorName, (name) -> new ConcurrentHashMap<>());
+        }
+        counter(actorAction, actionName).increment();
+    }
+
+    private static String key(String name) {
+        return name == null ? UNNAMED : name;
+    }
+
+    /**
+     * Starts (or, with null, stops) recording every logged action in a journal as well as counting it.
+     */
+    public void setJournal(ActionJournal journal) {
+        this.journal = journal;
+    }
+
+    public ActionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the simulation tick that actions logged from now on are journaled under.
+     */
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Looks the counter up before falling back to computeIfAbsent, which locks its bin even when the key exists.
+     */
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, (k) -> new LongAdder());
+        }
+        return counter;
+    }
+
+    private static Map<String, Long> sum(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            sums.put(entry.getKey(), entry.getValue().sum());
+        }
+        return sums;
+    }
+
     public String actionReport() {
         StringBuilder sb = new StringBuilder();
-        Map<String, Long> sorted = sortByValue(actions);
+        Map<String, Long> sorted = sortByValue(sum(actions));
         for (Map.Entry<String, Long> entry : sorted.entrySet()) {
             sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
         }
@@ -63,10 +168,10 @@ public class ActionLogger {
 
     public String actorReport() {
         StringBuilder sb = new StringBuilder();
-        Map<String, Map<String, Long>> sortedActors = sortByKey(actorActions);
-        for (Map.Entry<String, Map<String, Long>> entry : sortedActors.entrySet()) {
+        Map<String, ConcurrentMap<String, LongAdder>> sortedActors = sortByKey(actorActions);
+        for (Map.Entry<String, ConcurrentMap<String, LongAdder>> entry : sortedActors.entrySet()) {
             sb.append(entry.getKey()).append("\n");
-            Map<String, Long> sortedActions = sortByValue(entry.getValue());
+            Map<String, Long> sortedActions = sortByValue(sum(entry.getValue()));
             for (Map.Entry<String, Long> actionEntry : sortedActions.entrySet()) {
                 sb.append("   ").append(actionEntry.getKey()).append(": ").append(actionEntry.getValue()).append("\n");
             }
@@ -79,8 +184,31 @@ public class ActionLogger {
         actorActions.clear();
     }
 
+    /**
+     * @return a snapshot of how many times the actor has performed each action, or null if it has never been
+     * logged performing anything
+     */
     public Map<String, Long> actionsBy(Actor actor) {
-        return actorActions.get(actor.getName());
+        Map<String, LongAdder> myActions = actorActions.get(key(actor.getName()));
+        if (myActions == null) {
+            return null;
+        }
+        return sum(myActions);
+    }
+
+    /**
+     * @return a snapshot of how many times any actor has performed each action
+     */
+    public Map<String, Long> actionCounts() {
+        return sum(actions);
+    }
+
+    /**
+     * @return how many times any actor has performed the named action
+     */
+    public long actionCount(String actionName) {
+        LongAdder count = actions.get(key(actionName));
+        return count == null ? 0 : count.sum();
     }
 
     public static <K extends Comparable<? super K>, V> Map<K, V>
@@ -120,13 +248,14 @@ public class ActionLogger {
     }
 
     public long actorActionCount(Actor actor, String actionName) {
-        Map<String, Long> myActions = actorActions.get(actor.getName());
+        Map<String, LongAdder> myActions = actorActions.get(key(actor.getName()));
         if (myActions == null) {
             return 0l;
         }
-        if (!myActions.containsKey(actionName)) {
+        LongAdder count = myActions.get(key(actionName));
+        if (count == null) {
             return 0l;
         }
-        return myActions.get(actionName);
+        return count.sum();
     }
 }
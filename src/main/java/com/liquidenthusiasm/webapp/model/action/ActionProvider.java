@@ -7,6 +7,24 @@ import java.util.List;
 public interface ActionProvider {
     List<Action> getActions(Actor actor);
 
+    /**
+     * Returns every action this provider might offer the actor, without checking whether they are valid, so the
+     * caller can check validity as it walks the array. Providers that call this on every tick should return a
+     * cached array rather than building a new one. Callers must not modify the array.
+     */
+    default Action[] getCandidateActions(Actor actor) {
+        List<Action> actions = getActions(actor);
+        return actions.toArray(new Action[actions.size()]);
+    }
+
+    /**
+     * Returns an upper bound on the utility any of this provider's actions could offer the actor right now, so
+     * the actor can skip the provider when it already has something better. The default is no bound at all.
+     */
+    default double getUtilityBound(Actor actor) {
+        return Double.POSITIVE_INFINITY;
+    }
+
     void actionPerformed(Actor actor, Action action);
 
     String getName();
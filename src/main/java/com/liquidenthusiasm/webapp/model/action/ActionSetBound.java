@@ -0,0 +1,52 @@
+package com.liquidenthusiasm.webapp.model.action;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+
+/**
+ * The largest change any of a set of actions might make to each motive, from which an actor can work out an upper
+ * bound on the utility the whole set could offer it (see {@link Actor#utilityBound(MotiveVector)}).
+ * <p>
+ * A bound is built for one array of candidate actions and one {@link ActionDefinitions#version()}, and providers
+ * keep it until either changes. Sets containing an action whose motives aren't known ahead of time have no
+ * bound.
+ */
+public final class ActionSetBound {
+    private final Action[] source;
+    private final long version;
+    private final MotiveVector maxChanges;
+
+    private ActionSetBound(Action[] source, long version, MotiveVector maxChanges) {
+        this.source = source;
+        this.version = version;
+        this.maxChanges = maxChanges;
+    }
+
+    public static ActionSetBound of(Action[] actions, Actor actor) {
+        long version = ActionDefinitions.version();
+        MotiveVector maxChanges = MotiveVector.EMPTY;
+        for (Action action : actions) {
+            // the bound relies on a time factor of at least 1, which needs a completion time of at least 1
+            if (!action.hasStableMotives() || action.getCompletionTime() < 1) {
+                maxChanges = null;
+                break;
+            }
+            maxChanges = maxChanges.maxMagnitude(action.getMaximumMotiveVector(actor));
+        }
+        return new ActionSetBound(actions, version, maxChanges);
+    }
+
+    /**
+     * @return true if this bound was built for this array of actions and the current action definitions
+     */
+    public boolean isFor(Action[] actions) {
+        return source == actions && version == ActionDefinitions.version();
+    }
+
+    /**
+     * @return the magnitude of the largest change to each motive, or null if the set has no bound
+     */
+    public MotiveVector getMaxChanges() {
+        return maxChanges;
+    }
+}
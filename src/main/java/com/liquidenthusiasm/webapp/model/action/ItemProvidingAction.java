@@ -2,7 +2,9 @@ package com.liquidenthusiasm.webapp.model.action;
 
 import com.liquidenthusiasm.webapp.model.Actor;
 import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.journal.ActionJournal;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -10,6 +12,7 @@ import java.util.Map;
 public class ItemProvidingAction extends MotivatedAction {
     public static final double PREVIOUSLY_OWNED_ITEM_ADJUSTMENT = 0.5d;
     private Item providedItem;
+    private volatile ScaledVector alreadyOwnedVector;
 
     public ItemProvidingAction(String name) {
         super(name);
@@ -21,6 +24,7 @@ public class ItemProvidingAction extends MotivatedAction {
 
     public ItemProvidingAction providesItem(Item providedItem) {
         this.providedItem = providedItem;
+        ActionDefinitions.changed();
         return this;
     }
 
@@ -28,6 +32,22 @@ public class ItemProvidingAction extends MotivatedAction {
         return providedItem;
     }
 
+    /**
+     * The changes promised for an item the actor already owns are scaled down, so the item's own are the largest.
+     */
+    @Override
+    public MotiveVector getMaximumMotiveVector(Actor actor) {
+        return providedItem.getMaximumMotiveVector(actor);
+    }
+
+    /**
+     * The motives this action promises are those of the provided item, so they are as stable as the item's.
+     */
+    @Override
+    public boolean hasStableMotives() {
+        return providedItem != null && providedItem.hasStableMotives();
+    }
+
     @Override
     public void perform(Actor actor, ActionProvider provider) {
         actor.addItem(providedItem.copy());
@@ -50,6 +70,20 @@ public class ItemProvidingAction extends MotivatedAction {
         return providedItem.getExpectedMotiveFulfillment(actor);
     }
 
+    @Override
+    public MotiveVector getExpectedMotiveVector(Actor actor) {
+        MotiveVector itemVector = providedItem.getExpectedMotiveVector(actor);
+        if (!actor.getItems().contains(providedItem)) {
+            return itemVector;
+        }
+        ScaledVector scaled = alreadyOwnedVector;
+        if (scaled == null || scaled.source != itemVector) {
+            scaled = new ScaledVector(itemVector, itemVector.scale(PREVIOUSLY_OWNED_ITEM_ADJUSTMENT));
+            alreadyOwnedVector = scaled;
+        }
+        return scaled.scaled;
+    }
+
     private Map<Motive, Double> getAlreadyOwnedExpectedMotiveFulfillment(Actor actor) {
         HashMap<Motive, Double> retval = new HashMap<>(providedItem.getExpectedMotiveFulfillment(actor));
         for (Map.Entry<Motive, Double> entry : retval.entrySet()) {
@@ -61,10 +95,27 @@ public class ItemProvidingAction extends MotivatedAction {
     @Override
     protected void logAction(Actor actor, ActionProvider provider) {
         if (providedItem != null) {
-            ActionLogger.logger.log(actor, this, provider, String.format("; gets %s", getProvidedItem().getName()));
+            int uses = providedItem.getUses();
+            ActionLogger.forActor(actor).log(actor, this, provider, providedItem,
+                    uses == Item.INFINITE_USES ? ActionJournal.INFINITE_USES : uses,
+                    String.format("; gets %s", getProvidedItem().getName()));
         } else {
             super.logAction(actor, provider);
         }
     }
 
+    /**
+     * The provided item's vector with the already-owned adjustment applied, remembered along with the vector it
+     * was made from so it is rebuilt whenever the item's actions are recompiled.
+     */
+    private static final class ScaledVector {
+        private final MotiveVector source;
+        private final MotiveVector scaled;
+
+        private ScaledVector(MotiveVector source, MotiveVector scaled) {
+            this.source = source;
+            this.scaled = scaled;
+        }
+    }
+
 }
@@ -3,15 +3,19 @@ package com.liquidenthusiasm.webapp.model.action;
 import com.liquidenthusiasm.webapp.model.Actor;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
 import com.liquidenthusiasm.webapp.model.motive.MotiveFulfiller;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class MotivatedAction implements Action, MotiveFulfiller {
     private final String name;
-    protected Map<Motive, Double> motiveChanges = new HashMap<>();
+    private final Map<Motive, Double> motiveChanges = new HashMap<>();
+    private final Map<Motive, Double> motiveChangesView = Collections.unmodifiableMap(motiveChanges);
     private ActionValidityCheck validityCheck = null;
     private int completionTime = 1;
+    private volatile MotiveVector compiledChanges;
 
     public MotivatedAction(String name) {
         this.name = name;
@@ -30,17 +34,50 @@ public class MotivatedAction implements Action, MotiveFulfiller {
      */
     public MotivatedAction motive(Motive motive, double change) {
         motiveChanges.put(motive, change);
+        compiledChanges = null;
+        ActionDefinitions.changed();
         return this;
     }
 
+    /**
+     * @return a read-only view of this action's motive changes; they can only be changed through
+     * {@link #motive(Motive, double)}, which keeps the compiled vector current
+     */
     @Override
     public Map<Motive, Double> getExpectedMotiveFulfillment(Actor actor) {
-        return motiveChanges;
+        return motiveChangesView;
+    }
+
+    /**
+     * @return this action's motive changes, compiled on first use and kept until {@link #motive(Motive, double)}
+     * is called again
+     */
+    @Override
+    public MotiveVector getExpectedMotiveVector(Actor actor) {
+        return getOwnMotiveVector();
+    }
+
+    /**
+     * @return the changes this action itself makes to motives when performed, compiled; unlike
+     * {@link #getExpectedMotiveVector(Actor)} this is never overridden to promise anything else
+     */
+    public MotiveVector getOwnMotiveVector() {
+        MotiveVector compiled = compiledChanges;
+        if (compiled == null) {
+            compiled = MotiveVector.of(motiveChanges);
+            compiledChanges = compiled;
+        }
+        return compiled;
+    }
+
+    @Override
+    public boolean hasStableMotives() {
+        return true;
     }
 
     @Override
     public Map<Motive, Double> getActualMotiveFulfillment(Actor actor) {
-        return motiveChanges;
+        return motiveChangesView;
     }
 
 
@@ -61,7 +98,7 @@ public class MotivatedAction implements Action, MotiveFulfiller {
     }
 
     protected void logAction(Actor actor, ActionProvider provider) {
-        ActionLogger.logger.log(actor, this, provider);
+        ActionLogger.forActor(actor).log(actor, this, provider);
     }
 
     @Override
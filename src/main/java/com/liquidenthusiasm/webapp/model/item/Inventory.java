@@ -0,0 +1,156 @@
+package com.liquidenthusiasm.webapp.model.item;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The items an actor holds, as one stack per item name.
+ * <p>
+ * Adding an item whose name is already held merges it into the held stack, adding its uses (a stack with infinite
+ * uses stays infinite), so picking something up costs a single hash lookup however many kinds of item are held.
+ * As a {@link java.util.Set} it holds the stacks themselves, in the order they were started, and, like
+ * {@link Item#equals(Object)}, treats items with the same name as the same item. Not thread safe.
+ * <p>
+ * An inventory can hand out a {@link #readOnlyView()}, which follows its changes but throws
+ * {@link UnsupportedOperationException} on any attempt to make one, so an owner can share its inventory while
+ * keeping every change going through itself.
+ */
+public class Inventory extends AbstractSet<Item> {
+    private final Map<String, Item> stacks;
+    private final boolean readOnly;
+    private Inventory view;
+
+    public Inventory() {
+        this(new LinkedHashMap<>(), false);
+    }
+
+    private Inventory(Map<String, Item> stacks, boolean readOnly) {
+        this.stacks = stacks;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return a view of this inventory that sees every change to it but can't make any
+     */
+    public Inventory readOnlyView() {
+        if (readOnly) {
+            return this;
+        }
+        if (view == null) {
+            view = new Inventory(stacks, true);
+        }
+        return view;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("This inventory is a read-only view");
+        }
+    }
+
+    /**
+     * Adds the item, either as a new stack or by merging its uses into the stack of the same name.
+     *
+     * @return true if the item started a new stack
+     */
+    @Override
+    public boolean add(Item item) {
+        checkWritable();
+        Item held = stacks.putIfAbsent(item.getName(), item);
+        if (held == null) {
+            return true;
+        }
+        if (held != item) {
+            merge(held, item.getUses());
+        }
+        return false;
+    }
+
+    /**
+     * Adds this many uses of an item of the given kind, without making a new item unless none of that name is
+     * held yet.
+     *
+     * @return true if a new stack was started
+     */
+    public boolean add(ItemPrototype prototype, int uses) {
+        checkWritable();
+        Item held = stacks.get(prototype.getName());
+        if (held != null) {
+            merge(held, uses);
+            return false;
+        }
+        stacks.put(prototype.getName(), new Item(prototype, uses));
+        return true;
+    }
+
+    private static void merge(Item held, int uses) {
+        if (uses == Item.INFINITE_USES || held.getUses() == Item.INFINITE_USES) {
+            held.setUses(Item.INFINITE_USES);
+        } else {
+            held.setUses(held.getUses() + uses);
+        }
+    }
+
+    /**
+     * @return the stack held under this name, or null if there is none
+     */
+    public Item get(String name) {
+        return stacks.get(name);
+    }
+
+    /**
+     * @return the uses left in the stack with this name, which is {@link Item#INFINITE_USES} for an endless one
+     * and 0 if none is held
+     */
+    public int count(String name) {
+        Item held = stacks.get(name);
+        return held == null ? 0 : held.getUses();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Item && stacks.containsKey(((Item) o).getName());
+    }
+
+    /**
+     * Removes the whole stack with the same name as the given item.
+     */
+    @Override
+    public boolean remove(Object o) {
+        checkWritable();
+        return o instanceof Item && stacks.remove(((Item) o).getName()) != null;
+    }
+
+    /**
+     * Removes the whole stack with this name.
+     *
+     * @return the stack that was removed, or null if there was none
+     */
+    public Item remove(String name) {
+        checkWritable();
+        return stacks.remove(name);
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return readOnly ? Collections.unmodifiableCollection(stacks.values()).iterator() : stacks.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return stacks.size();
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        stacks.clear();
+    }
+}
@@ -1,36 +1,66 @@
 package com.liquidenthusiasm.webapp.model.item;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.liquidenthusiasm.webapp.model.Actor;
 import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
 import com.liquidenthusiasm.webapp.model.action.ActionProvider;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
 import com.liquidenthusiasm.webapp.model.motive.MotiveFulfiller;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * One item, or a stack of them: an {@link ItemPrototype}, which holds the name and actions every item of its kind
+ * shares, and the number of uses this item has left. Copies share their prototype, so adding an action through
+ * any copy adds it to them all.
+ */
 public class Item implements ActionProvider, MotiveFulfiller {
     public static final int INFINITE_USES = -1;
 
-    private final String name;
-    private List<Action> actions = new ArrayList<>();
-    private int uses = INFINITE_USES;
+    private final ItemPrototype prototype;
+    private int uses;
 
     public Item(String name) {
-        this.name = name;
+        this(new ItemPrototype(name), INFINITE_USES);
+    }
+
+    public Item(ItemPrototype prototype, int uses) {
+        if (prototype == null) {
+            throw new IllegalArgumentException("An item must have a prototype");
+        }
+        this.prototype = prototype;
+        this.uses = uses;
     }
 
     public String getName() {
-        return name;
+        return prototype.getName();
+    }
+
+    @JsonIgnore
+    public ItemPrototype getPrototype() {
+        return prototype;
     }
 
     public void addAction(Action action) {
-        this.actions.add(action);
+        prototype.addAction(action);
     }
 
     @Override
     public List<Action> getActions(Actor actor) {
-        return actions.stream().filter((action) -> action.isValid(actor)).collect(Collectors.toList());
+        return prototype.getActions().stream().filter((action) -> action.isValid(actor)).collect(Collectors.toList());
+    }
+
+    @Override
+    public Action[] getCandidateActions(Actor actor) {
+        return prototype.getCandidateActions();
+    }
+
+    @Override
+    public double getUtilityBound(Actor actor) {
+        return prototype.getUtilityBound(actor);
     }
 
     public void setUses(int uses) {
@@ -51,8 +81,11 @@ public class Item implements ActionProvider, MotiveFulfiller {
     private void subtractUses(Actor actor, int i) {
         if (uses != INFINITE_USES && uses >= i) {
             uses -= i;
-            if (actor != null && uses == 0) {
-                actor.removeItem(this);
+            if (actor != null) {
+                ActionLogger.forActor(actor).logItemChange(actor, this, -i);
+                if (uses == 0) {
+                    actor.removeItem(this);
+                }
             }
         }
     }
@@ -68,43 +101,71 @@ public class Item implements ActionProvider, MotiveFulfiller {
 
         Item item = (Item) o;
 
-        if (!name.equals(item.name)) return false;
+        if (!getName().equals(item.getName())) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return getName().hashCode();
     }
 
     public Item copy() {
         if (this.uses == INFINITE_USES) {
             return this;
         }
-        Item retval = new Item(this.getName());
-        retval.actions = this.actions;
-        retval.uses = this.uses;
-        return retval;
+        return new Item(prototype, uses);
     }
 
-    public Action getAction(String actionName) {
-        for (Action action : actions) {
-            if (Objects.equals(action.getName(), actionName)) {
-                return action;
-            }
+    /**
+     * @return a copy of this item with the given number of uses left, or this item itself if both it and the copy
+     * would have infinite uses
+     */
+    public Item copy(int uses) {
+        if (uses == INFINITE_USES && this.uses == INFINITE_USES) {
+            return this;
         }
-        return null;
+        return new Item(prototype, uses);
+    }
+
+    public Action getAction(String actionName) {
+        return prototype.getAction(actionName);
     }
 
     @Override
     public Map<Motive, Double> getExpectedMotiveFulfillment(Actor actor) {
+        List<Action> actions = prototype.getActions();
         if (actions.isEmpty()) {
             return Collections.EMPTY_MAP;
         }
         return actions.get(0).getExpectedMotiveFulfillment(actor);
     }
 
+    @Override
+    public MotiveVector getExpectedMotiveVector(Actor actor) {
+        List<Action> actions = prototype.getActions();
+        if (actions.isEmpty()) {
+            return MotiveVector.EMPTY;
+        }
+        return actions.get(0).getExpectedMotiveVector(actor);
+    }
+
+    @Override
+    public MotiveVector getMaximumMotiveVector(Actor actor) {
+        List<Action> actions = prototype.getActions();
+        if (actions.isEmpty()) {
+            return MotiveVector.EMPTY;
+        }
+        return actions.get(0).getMaximumMotiveVector(actor);
+    }
+
+    @Override
+    public boolean hasStableMotives() {
+        List<Action> actions = prototype.getActions();
+        return actions.isEmpty() || actions.get(0).hasStableMotives();
+    }
+
     @Override
     public Map<Motive, Double> getActualMotiveFulfillment(Actor actor) {
         return Collections.EMPTY_MAP;
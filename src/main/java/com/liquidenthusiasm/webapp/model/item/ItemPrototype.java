@@ -0,0 +1,86 @@
+package com.liquidenthusiasm.webapp.model.item;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ActionDefinitions;
+import com.liquidenthusiasm.webapp.model.action.ActionSetBound;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What every item of one kind has in common: its name and the actions it offers. An {@link Item} is just a
+ * prototype plus the number of uses that particular item has left, so handing out another charged item costs
+ * one small object, and the actions' candidate array and utility bound are worked out once per kind of item.
+ * <p>
+ * A prototype's name never changes; its actions are meant to be added while it is being defined, before the
+ * simulation runs.
+ */
+public final class ItemPrototype {
+    private static final Action[] NO_ACTIONS = new Action[0];
+
+    private final String name;
+    private final List<Action> actions = new ArrayList<>();
+    private final List<Action> actionsView = Collections.unmodifiableList(actions);
+    private volatile Action[] candidateActions = NO_ACTIONS;
+    private volatile ActionSetBound utilityBound;
+
+    public ItemPrototype(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ItemPrototype addAction(Action action) {
+        actions.add(action);
+        ActionDefinitions.changed();
+        return this;
+    }
+
+    /**
+     * @return a read-only view of every action items of this kind offer
+     */
+    public List<Action> getActions() {
+        return actionsView;
+    }
+
+    /**
+     * Returns a cached array of this prototype's actions, rebuilt whenever it has fallen behind the list.
+     */
+    public Action[] getCandidateActions() {
+        Action[] candidates = candidateActions;
+        if (candidates.length != actions.size()) {
+            candidates = actions.toArray(new Action[actions.size()]);
+            candidateActions = candidates;
+        }
+        return candidates;
+    }
+
+    public double getUtilityBound(Actor actor) {
+        Action[] candidates = getCandidateActions();
+        ActionSetBound bound = utilityBound;
+        if (bound == null || !bound.isFor(candidates)) {
+            bound = ActionSetBound.of(candidates, actor);
+            utilityBound = bound;
+        }
+        return actor.utilityBound(bound.getMaxChanges());
+    }
+
+    public Action getAction(String actionName) {
+        for (Action action : actions) {
+            if (Objects.equals(action.getName(), actionName)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPrototype{'" + name + "'}";
+    }
+}
@@ -0,0 +1,208 @@
+package com.liquidenthusiasm.webapp.model.journal;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only journal of every action performed, written to memory-mapped segment files.
+ * <p>
+ * Each call to {@link #record} claims the next record slot with a single atomic increment and writes the record
+ * straight into the mapped segment, so threads recording at the same time never wait for each other except when
+ * a new name enters the dictionary or a full segment rolls over to the next one. Records from different threads
+ * can land in the journal in a slightly different order than they happened in, but every record carries its tick.
+ * See {@link JournalFormat} for the layout and {@link ActionJournalReader} to read a journal back.
+ */
+public class ActionJournal implements Closeable {
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+    /** the item delta recorded when an actor is handed an item with infinite uses */
+    public static final int INFINITE_USES = Integer.MAX_VALUE;
+    /** the most records a segment can hold and still be mapped, and addressed with int offsets, as one buffer */
+    public static final int MAX_RECORDS_PER_SEGMENT = Integer.MAX_VALUE / JournalFormat.RECORD_SIZE;
+
+    private final File directory;
+    private final int recordsPerSegment;
+    private final AtomicLong nextRecord = new AtomicLong();
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final DataOutputStream dictionary;
+    private volatile Segment current;
+    private Segment previous;
+    private volatile boolean closed = false;
+
+    public ActionJournal(File directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * Starts a new journal in the given directory, which must not already contain one.
+     *
+     * @param recordsPerSegment between 1 and {@link #MAX_RECORDS_PER_SEGMENT}
+     */
+    public ActionJournal(File directory, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment < 1 || recordsPerSegment > MAX_RECORDS_PER_SEGMENT) {
+            throw new IllegalArgumentException(String.format("A segment must hold between 1 and %d records, but got %d",
+                    MAX_RECORDS_PER_SEGMENT, recordsPerSegment));
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create journal directory " + directory);
+        }
+        File dictionaryFile = new File(directory, JournalFormat.DICTIONARY);
+        if (dictionaryFile.exists()) {
+            throw new IllegalArgumentException(String.format("%s already contains a journal", directory));
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.dictionary = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dictionaryFile)));
+        this.current = map(0);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Appends a record of an action being performed. Null names are recorded as {@link JournalFormat#NONE}.
+     *
+     * @throws IllegalStateException if the journal has been closed
+     */
+    public void record(long tick, String actor, String action, String provider, String item, int itemDelta) {
+        checkOpen();
+        int actorId = id(actor);
+        int actionId = id(action);
+        int providerId = id(provider);
+        int itemId = id(item);
+        long index = nextRecord.getAndIncrement();
+        MappedByteBuffer buffer = segment(index / recordsPerSegment).buffer;
+        int offset = (int) (index % recordsPerSegment) * JournalFormat.RECORD_SIZE;
+        buffer.putLong(offset + JournalFormat.TICK, tick);
+        buffer.putInt(offset + JournalFormat.ACTOR, actorId);
+        buffer.putInt(offset + JournalFormat.ACTION, actionId);
+        buffer.putInt(offset + JournalFormat.PROVIDER, providerId);
+        buffer.putInt(offset + JournalFormat.ITEM, itemId);
+        buffer.putInt(offset + JournalFormat.ITEM_DELTA, itemDelta);
+        buffer.putInt(offset + JournalFormat.MARKER, JournalFormat.COMMITTED);
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long size() {
+        return nextRecord.get();
+    }
+
+    private int id(String name) {
+        if (name == null) {
+            return JournalFormat.NONE;
+        }
+        Integer id = ids.get(name);
+        return id != null ? id : newId(name);
+    }
+
+    private synchronized int newId(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            try {
+                dictionary.writeInt(id);
+                dictionary.writeUTF(name);
+                // the name must be on disk before any record that refers to it
+                dictionary.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not add " + name + " to the journal dictionary", e);
+            }
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    private Segment segment(long index) {
+        Segment segment = current;
+        if (segment.index == index) {
+            return segment;
+        }
+        return rollOver(index);
+    }
+
+    /**
+     * Maps the segment a record slot falls in. Normally that is the segment after the current one, but a thread
+     * that was descheduled between claiming its slot and writing it may still need the one before.
+     */
+    private synchronized Segment rollOver(long index) {
+        checkOpen();
+        if (current.index == index) {
+            return current;
+        }
+        if (previous != null && previous.index == index) {
+            return previous;
+        }
+        try {
+            Segment segment = map(index);
+            if (index > current.index) {
+                if (previous != null) {
+                    previous.buffer.force();
+                }
+                previous = current;
+                current = segment;
+            }
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + index, e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The journal in " + directory + " has been closed");
+        }
+    }
+
+    private Segment map(long index) throws IOException {
+        File file = JournalFormat.segmentFile(directory, index);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) recordsPerSegment * JournalFormat.RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new Segment(index, buffer);
+        }
+    }
+
+    /**
+     * Forces everything written so far out to disk.
+     */
+    public synchronized void flush() throws IOException {
+        dictionary.flush();
+        if (previous != null) {
+            previous.buffer.force();
+        }
+        current.buffer.force();
+    }
+
+    /**
+     * Flushes the journal. Must only be called once nothing is recording any more.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        dictionary.close();
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.liquidenthusiasm.webapp.model.journal;
+
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads back a journal written by {@link ActionJournal}, segment by segment, straight out of memory-mapped files.
+ */
+public class ActionJournalReader {
+    private final File directory;
+    private final List<String> names = new ArrayList<>();
+
+    public ActionJournalReader(File directory) throws IOException {
+        this.directory = directory;
+        loadDictionary();
+    }
+
+    /**
+     * Rereads the dictionary, picking up names added since this reader was created.
+     */
+    public final void loadDictionary() throws IOException {
+        File file = new File(directory, JournalFormat.DICTIONARY);
+        if (!file.isFile()) {
+            throw new FileNotFoundException("No journal dictionary in " + directory);
+        }
+        names.clear();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                String name = in.readUTF();
+                while (names.size() <= id) {
+                    names.add(null);
+                }
+                names.set(id, name);
+            }
+        }
+    }
+
+    /**
+     * @return the name with this id, or null for {@link JournalFormat#NONE}
+     */
+    public String name(int id) {
+        if (id == JournalFormat.NONE) {
+            return null;
+        }
+        if (id < 0 || id >= names.size()) {
+            throw new IllegalArgumentException(String.format("Journal in %s has no name with id %d", directory, id));
+        }
+        return names.get(id);
+    }
+
+    /**
+     * Streams every committed record in the journal to the visitor, in the order they were written.
+     *
+     * @return the number of records read
+     */
+    public long read(JournalVisitor visitor) throws IOException {
+        long count = 0;
+        for (File segment : segments()) {
+            count += readSegment(segment, visitor);
+        }
+        return count;
+    }
+
+    private long readSegment(File file, JournalVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            long count = 0;
+            int limit = buffer.capacity() - JournalFormat.RECORD_SIZE;
+            for (int offset = 0; offset <= limit; offset += JournalFormat.RECORD_SIZE) {
+                if (buffer.getInt(offset + JournalFormat.MARKER) != JournalFormat.COMMITTED) {
+                    break;
+                }
+                visitor.visit(buffer.getLong(offset + JournalFormat.TICK),
+                        buffer.getInt(offset + JournalFormat.ACTOR),
+                        buffer.getInt(offset + JournalFormat.ACTION),
+                        buffer.getInt(offset + JournalFormat.PROVIDER),
+                        buffer.getInt(offset + JournalFormat.ITEM),
+                        buffer.getInt(offset + JournalFormat.ITEM_DELTA));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private File[] segments() {
+        File[] segments = directory.listFiles((dir, name) -> JournalFormat.isSegment(name));
+        if (segments == null) {
+            return new File[0];
+        }
+        // segment numbers are zero padded, so names sort in segment order
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Rebuilds the counts in an action logger from the journal, without printing anything. Records of item uses
+     * being spent, which have no action, are read but not counted.
+     *
+     * @return the number of records read
+     */
+    public long replayInto(ActionLogger logger) throws IOException {
+        return read((tick, actorId, actionId, providerId, itemId, itemDelta) -> {
+            if (actionId != JournalFormat.NONE) {
+                logger.count(name(actorId), name(actionId));
+            }
+        });
+    }
+}
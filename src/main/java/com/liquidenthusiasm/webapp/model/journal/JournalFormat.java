@@ -0,0 +1,54 @@
+package com.liquidenthusiasm.webapp.model.journal;
+
+import java.io.File;
+
+/**
+ * Layout of an action journal on disk.
+ * <p>
+ * A journal is a directory holding a dictionary file and numbered segment files. Segments are arrays of
+ * fixed-size records, each {@link #RECORD_SIZE} bytes, little-endian:
+ * <pre>
+ *  0  long tick
+ *  8  int  actor id
+ * 12  int  action id
+ * 16  int  provider id, or {@link #NONE}
+ * 20  int  item id, or {@link #NONE}
+ * 24  int  item delta
+ * 28  int  {@link #COMMITTED}, written last
+ * </pre>
+ * The item delta is the change in how many uses of the item the actor holds: the uses of an item handed to it,
+ * with {@link ActionJournal#INFINITE_USES} for an item that never runs out, or -1 for a use spent. A spent use
+ * has a record of its own with no action, just after the record of the action that spent it.
+ * <p>
+ * Ids refer to names in the dictionary, which is a sequence of (int id, UTF name) entries written with
+ * {@link java.io.DataOutputStream}. A record whose last word is not {@link #COMMITTED} was never finished, and
+ * marks the end of the segment's data.
+ */
+final class JournalFormat {
+    static final int RECORD_SIZE = 32;
+    static final int NONE = -1;
+    static final int COMMITTED = 0x4C4E524A;
+
+    static final int TICK = 0;
+    static final int ACTOR = 8;
+    static final int ACTION = 12;
+    static final int PROVIDER = 16;
+    static final int ITEM = 20;
+    static final int ITEM_DELTA = 24;
+    static final int MARKER = 28;
+
+    static final String DICTIONARY = "dictionary";
+    static final String SEGMENT_PREFIX = "actions-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static File segmentFile(File directory, long index) {
+        return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static boolean isSegment(String fileName) {
+        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+    }
+}
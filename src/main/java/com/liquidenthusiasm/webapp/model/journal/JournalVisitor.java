@@ -0,0 +1,10 @@
+package com.liquidenthusiasm.webapp.model.journal;
+
+/**
+ * Receives the records of a journal as it is read, one call per record, without a record object being created.
+ * Ids can be turned back into names with {@link ActionJournalReader#name(int)}.
+ */
+@FunctionalInterface
+public interface JournalVisitor {
+    void visit(long tick, int actorId, int actionId, int providerId, int itemId, int itemDelta);
+}
@@ -16,4 +16,8 @@ public class ConstantMotiveUpdate implements MotiveUpdate {
     public void update(Motive motive, Actor actor) {
         actor.addMotive(motive, amount);
     }
+
+    public double getAmount() {
+        return amount;
+    }
 }
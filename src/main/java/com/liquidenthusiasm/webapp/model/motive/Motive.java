@@ -6,6 +6,7 @@ public class Motive {
     private String name;
     private int min = -100;
     private int max = 100;
+    private final int ordinal = MotiveRegistry.register(this);
 
     public Motive() {
     }
@@ -33,6 +34,13 @@ public class Motive {
         }
     }
 
+    /**
+     * @return this motive's index in the {@link MotiveRegistry}, stable for the life of the application
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     public int getMin() {
         return min;
     }
@@ -57,6 +65,11 @@ public class Motive {
         return this;
     }
 
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
     @Override
     public String toString() {
         return "Motive{" +
@@ -8,4 +8,29 @@ public interface MotiveFulfiller {
     Map<Motive, Double> getExpectedMotiveFulfillment(Actor actor);
 
     Map<Motive, Double> getActualMotiveFulfillment(Actor actor);
+
+    /**
+     * The same changes as {@link #getExpectedMotiveFulfillment(Actor)}, in compiled form. Implementations that
+     * are scored often should override this to return a cached vector instead of compiling one on every call.
+     */
+    default MotiveVector getExpectedMotiveVector(Actor actor) {
+        return MotiveVector.of(getExpectedMotiveFulfillment(actor));
+    }
+
+    /**
+     * @return changes at least as large, motive by motive, as any this fulfiller might promise any actor through
+     * {@link #getExpectedMotiveVector(Actor)}; used to bound how much utility it could offer
+     */
+    default MotiveVector getMaximumMotiveVector(Actor actor) {
+        return getExpectedMotiveVector(actor);
+    }
+
+    /**
+     * @return true if the motives in {@link #getExpectedMotiveVector(Actor)} are the same for every actor, and
+     * only change along with {@link com.liquidenthusiasm.webapp.model.action.ActionDefinitions#version()}, so they
+     * can be indexed ahead of time
+     */
+    default boolean hasStableMotives() {
+        return false;
+    }
 }
@@ -0,0 +1,50 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+/**
+ * Hands every {@link Motive} a small, stable ordinal when it is created, so per-actor motive state can be kept
+ * in arrays indexed by ordinal instead of in hash maps.
+ * <p>
+ * Motives are expected to be defined once and shared for the life of the application; the registry keeps
+ * every motive it has seen so an ordinal can always be turned back into its motive.
+ */
+public final class MotiveRegistry {
+    private static final Object lock = new Object();
+    private static volatile Motive[] motives = new Motive[16];
+    private static volatile int size = 0;
+
+    private MotiveRegistry() {
+//        no public instances
+    }
+
+    static int register(Motive motive) {
+        synchronized (lock) {
+            Motive[] current = motives;
+            if (size == current.length) {
+                Motive[] grown = new Motive[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            current[size] = motive;
+            motives = current;
+            return size++;
+        }
+    }
+
+    /**
+     * @return the motive with the given ordinal, or null if no motive has been given that ordinal
+     */
+    public static Motive get(int ordinal) {
+        Motive[] current = motives;
+        if (ordinal < 0 || ordinal >= current.length) {
+            return null;
+        }
+        return current[ordinal];
+    }
+
+    /**
+     * @return the number of motives registered so far; every ordinal handed out is smaller than this
+     */
+    public static int size() {
+        return size;
+    }
+}
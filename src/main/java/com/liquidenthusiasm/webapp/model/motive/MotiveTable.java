@@ -0,0 +1,106 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import java.util.*;
+
+/**
+ * A dense map from motive to an object, stored in an array indexed by {@link Motive#getOrdinal()}.
+ * Null values are treated as absent.
+ */
+public class MotiveTable<V> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] values = EMPTY;
+    private int count = 0;
+
+    @SuppressWarnings("unchecked")
+    public V get(int ordinal) {
+        if (ordinal >= values.length) {
+            return null;
+        }
+        return (V) values[ordinal];
+    }
+
+    public void put(int ordinal, V value) {
+        if (value == null) {
+            remove(ordinal);
+            return;
+        }
+        if (ordinal >= values.length) {
+            values = Arrays.copyOf(values, MotiveValues.grownCapacity(values.length, ordinal));
+        }
+        if (values[ordinal] == null) {
+            count++;
+        }
+        values[ordinal] = value;
+    }
+
+    public boolean remove(int ordinal) {
+        if (ordinal >= values.length || values[ordinal] == null) {
+            return false;
+        }
+        values[ordinal] = null;
+        count--;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return one more than the highest ordinal this instance has room for; useful as a loop bound
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * @return a read-only view of this table, keyed by motive
+     */
+    public Map<Motive, V> asMap() {
+        return new AbstractMap<Motive, V>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public V get(Object key) {
+                if (!(key instanceof Motive)) {
+                    return null;
+                }
+                return MotiveTable.this.get(((Motive) key).getOrdinal());
+            }
+
+            @Override
+            public Set<Entry<Motive, V>> entrySet() {
+                return new AbstractSet<Entry<Motive, V>>() {
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+
+                    @Override
+                    public Iterator<Entry<Motive, V>> iterator() {
+                        return new MotiveValues.OrdinalIterator<Entry<Motive, V>>(values.length) {
+                            @Override
+                            boolean present(int ordinal) {
+                                return MotiveTable.this.get(ordinal) != null;
+                            }
+
+                            @Override
+                            Entry<Motive, V> entry(int ordinal) {
+                                return new SimpleImmutableEntry<>(MotiveRegistry.get(ordinal), MotiveTable.this.get(ordinal));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
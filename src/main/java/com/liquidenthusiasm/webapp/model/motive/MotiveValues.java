@@ -0,0 +1,165 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import java.util.*;
+
+/**
+ * A dense map from motive to a primitive double, stored in an array indexed by {@link Motive#getOrdinal()}.
+ * Absent motives are marked with NaN, so NaN itself can not be stored.
+ */
+public class MotiveValues {
+    private static final double[] EMPTY = new double[0];
+
+    private double[] values = EMPTY;
+    private int count = 0;
+
+    public boolean contains(int ordinal) {
+        return ordinal < values.length && !Double.isNaN(values[ordinal]);
+    }
+
+    public double get(int ordinal, double defaultValue) {
+        if (ordinal >= values.length) {
+            return defaultValue;
+        }
+        double value = values[ordinal];
+        return Double.isNaN(value) ? defaultValue : value;
+    }
+
+    public void put(int ordinal, double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Motive values may not be NaN");
+        }
+        if (ordinal >= values.length) {
+            grow(ordinal);
+        }
+        if (Double.isNaN(values[ordinal])) {
+            count++;
+        }
+        values[ordinal] = value;
+    }
+
+    public boolean remove(int ordinal) {
+        if (!contains(ordinal)) {
+            return false;
+        }
+        values[ordinal] = Double.NaN;
+        count--;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return one more than the highest ordinal this instance has room for; useful as a loop bound
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    private void grow(int ordinal) {
+        int newLength = grownCapacity(values.length, ordinal);
+        double[] grown = Arrays.copyOf(values, newLength);
+        Arrays.fill(grown, values.length, newLength, Double.NaN);
+        values = grown;
+    }
+
+    /**
+     * @return a read-only view of these values, keyed by motive
+     */
+    public Map<Motive, Double> asMap() {
+        return new AbstractMap<Motive, Double>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof Motive && MotiveValues.this.contains(((Motive) key).getOrdinal());
+            }
+
+            @Override
+            public Double get(Object key) {
+                if (!containsKey(key)) {
+                    return null;
+                }
+                return values[((Motive) key).getOrdinal()];
+            }
+
+            @Override
+            public Set<Entry<Motive, Double>> entrySet() {
+                return new AbstractSet<Entry<Motive, Double>>() {
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+
+                    @Override
+                    public Iterator<Entry<Motive, Double>> iterator() {
+                        return new OrdinalIterator<Entry<Motive, Double>>(values.length) {
+                            @Override
+                            boolean present(int ordinal) {
+                                return MotiveValues.this.contains(ordinal);
+                            }
+
+                            @Override
+                            Entry<Motive, Double> entry(int ordinal) {
+                                return new SimpleImmutableEntry<>(MotiveRegistry.get(ordinal), values[ordinal]);
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return room for the ordinal, at least doubling the capacity so a store filled one motive at a time is
+     * copied only a few times, but never more than the registry has motives
+     */
+    static int grownCapacity(int capacity, int ordinal) {
+        return Math.max(ordinal + 1, Math.min(capacity * 2, MotiveRegistry.size()));
+    }
+
+    /**
+     * Walks the ordinals of a dense motive store, skipping the ones that have no value.
+     */
+    abstract static class OrdinalIterator<E> implements Iterator<E> {
+        private final int limit;
+        private int next = -1;
+
+        /**
+         * @param limit the capacity of the store, past which no ordinal can have a value
+         */
+        OrdinalIterator(int limit) {
+            this.limit = limit;
+            advance();
+        }
+
+        abstract boolean present(int ordinal);
+
+        abstract E entry(int ordinal);
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < limit && !present(next));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < limit;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E retval = entry(next);
+            advance();
+            return retval;
+        }
+    }
+}
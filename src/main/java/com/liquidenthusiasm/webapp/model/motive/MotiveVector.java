@@ -0,0 +1,110 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable, sparse set of motive changes: parallel arrays of motive ordinals and the change to each,
+ * sorted by ordinal. This is the compiled form of a {@code Map<Motive, Double>} that utility calculations can
+ * walk without hashing, boxing or allocating.
+ */
+public final class MotiveVector {
+    public static final MotiveVector EMPTY = new MotiveVector(new int[0], new double[0]);
+
+    private final int[] ordinals;
+    private final double[] deltas;
+
+    private MotiveVector(int[] ordinals, double[] deltas) {
+        this.ordinals = ordinals;
+        this.deltas = deltas;
+    }
+
+    public static MotiveVector of(Map<Motive, Double> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return EMPTY;
+        }
+        long[] packed = new long[changes.size()];
+        double[] unsorted = new double[changes.size()];
+        int i = 0;
+        for (Map.Entry<Motive, Double> entry : changes.entrySet()) {
+            // pack the ordinal above the entry's position so one primitive sort orders both
+            packed[i] = ((long) entry.getKey().getOrdinal() << 32) | i;
+            unsorted[i] = entry.getValue();
+            i++;
+        }
+        Arrays.sort(packed);
+        int[] ordinals = new int[packed.length];
+        double[] deltas = new double[packed.length];
+        for (int j = 0; j < packed.length; j++) {
+            ordinals[j] = (int) (packed[j] >>> 32);
+            deltas[j] = unsorted[(int) packed[j]];
+        }
+        return new MotiveVector(ordinals, deltas);
+    }
+
+    public int size() {
+        return ordinals.length;
+    }
+
+    public int ordinal(int index) {
+        return ordinals[index];
+    }
+
+    public double delta(int index) {
+        return deltas[index];
+    }
+
+    /**
+     * @return a copy of this vector with every change multiplied by {@code factor}
+     */
+    public MotiveVector scale(double factor) {
+        if (ordinals.length == 0) {
+            return this;
+        }
+        double[] scaled = new double[deltas.length];
+        for (int i = 0; i < deltas.length; i++) {
+            scaled[i] = deltas[i] * factor;
+        }
+        return new MotiveVector(ordinals, scaled);
+    }
+
+    /**
+     * @return a vector with every motive in either vector, each mapped to the larger magnitude of its changes in
+     * the two, so the result bounds the size of every change either vector makes
+     */
+    public MotiveVector maxMagnitude(MotiveVector other) {
+        int[] mergedOrdinals = new int[ordinals.length + other.ordinals.length];
+        double[] mergedDeltas = new double[mergedOrdinals.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ordinals.length || j < other.ordinals.length) {
+            int mine = i < ordinals.length ? ordinals[i] : Integer.MAX_VALUE;
+            int theirs = j < other.ordinals.length ? other.ordinals[j] : Integer.MAX_VALUE;
+            if (mine < theirs) {
+                mergedOrdinals[n] = mine;
+                mergedDeltas[n] = Math.abs(deltas[i++]);
+            } else if (theirs < mine) {
+                mergedOrdinals[n] = theirs;
+                mergedDeltas[n] = Math.abs(other.deltas[j++]);
+            } else {
+                mergedOrdinals[n] = mine;
+                mergedDeltas[n] = Math.max(Math.abs(deltas[i++]), Math.abs(other.deltas[j++]));
+            }
+            n++;
+        }
+        return new MotiveVector(Arrays.copyOf(mergedOrdinals, n), Arrays.copyOf(mergedDeltas, n));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MotiveVector{");
+        for (int i = 0; i < ordinals.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(MotiveRegistry.get(ordinals[i])).append('=').append(deltas[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.liquidenthusiasm.webapp.model.sandbox;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.World;
+import com.liquidenthusiasm.webapp.model.action.ItemProvidingAction;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+
+import java.util.Random;
+
+/**
+ * A small farming village, for running a world without having to define one first. Villagers get hungrier, more
+ * tired and more bored every tick; they gather grass, buy hoes to farm corn with, sleep and chat. The web
+ * application's simulation runs one of these.
+ */
+public final class SampleWorld {
+    public static final Motive HUNGER = new Motive("hunger").min(0).max(100);
+    public static final Motive FATIGUE = new Motive("fatigue").min(0).max(100);
+    public static final Motive BOREDOM = new Motive("boredom").min(0).max(100);
+    private static final ConstantMotiveUpdate TIRE = new ConstantMotiveUpdate(0.5);
+
+    private SampleWorld() {
+//        no public instances
+    }
+
+    /**
+     * @return a new village of this many villagers, in a world with the given seed, which also decides how hungry,
+     * tired and bored each villager starts out
+     */
+    public static World create(int villagers, long seed) {
+        if (villagers < 0) {
+            throw new IllegalArgumentException("A village can not have a negative number of villagers, but got " + villagers);
+        }
+        Item grass = food("grass", 1, 3);
+        Item corn = food("corn", 2, 10);
+        Item hoe = new Item("hoe");
+        ItemProvidingAction farmCorn = new ItemProvidingAction("farm corn").providesItem(corn);
+        farmCorn.motive(FATIGUE, 2);
+        hoe.addAction(farmCorn);
+        ItemProvidingAction gatherGrass = new ItemProvidingAction("gather grass").providesItem(grass);
+        ItemProvidingAction buyHoe = new ItemProvidingAction("buy a hoe").providesItem(hoe);
+        MotivatedAction sleep = new MotivatedAction("sleep").motive(FATIGUE, -20);
+        sleep.setCompletionTime(4);
+        MotivatedAction chat = new MotivatedAction("chat").motive(BOREDOM, -6);
+
+        Random random = new Random(seed);
+        World world = new World(1, seed);
+        for (int i = 0; i < villagers; i++) {
+            Actor villager = new Actor("villager " + i);
+            villager.registerMotiveUpdate(HUNGER, ConstantMotiveUpdate.increaseByOne);
+            villager.registerMotiveUpdate(FATIGUE, TIRE);
+            villager.registerMotiveUpdate(BOREDOM, ConstantMotiveUpdate.increaseByOne);
+            for (Motive motive : new Motive[]{HUNGER, FATIGUE, BOREDOM}) {
+                villager.registerDesire(motive, 0, 0, 0);
+                villager.addMotive(motive, random.nextInt(50));
+            }
+            villager.setMotiveWeight(HUNGER, 2);
+            villager.addAction(gatherGrass);
+            villager.addAction(buyHoe);
+            villager.addAction(sleep);
+            villager.addAction(chat);
+            world.addActor(villager);
+        }
+        return world;
+    }
+
+    private static Item food(String name, int uses, int satiation) {
+        Item food = new Item(name);
+        food.setUses(uses);
+        food.addAction(new MotivatedAction("eat " + name).motive(HUNGER, -satiation));
+        return food;
+    }
+}
@@ -0,0 +1,65 @@
+package com.liquidenthusiasm.webapp.model.trace;
+
+/**
+ * One motive's contribution to the utility of one candidate action, as seen by one actor.
+ */
+public final class DecisionTraceRecord {
+    private final String actorName;
+    private final String actionName;
+    private final String motiveName;
+    private final double timeFactor;
+    private final double currentValue;
+    private final double change;
+    private final double utility;
+
+    public DecisionTraceRecord(String actorName, String actionName, String motiveName, double timeFactor, double currentValue, double change, double utility) {
+        this.actorName = actorName;
+        this.actionName = actionName;
+        this.motiveName = motiveName;
+        this.timeFactor = timeFactor;
+        this.currentValue = currentValue;
+        this.change = change;
+        this.utility = utility;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public String getActionName() {
+        return actionName;
+    }
+
+    public String getMotiveName() {
+        return motiveName;
+    }
+
+    public double getTimeFactor() {
+        return timeFactor;
+    }
+
+    public double getCurrentValue() {
+        return currentValue;
+    }
+
+    public double getChange() {
+        return change;
+    }
+
+    public double getUtility() {
+        return utility;
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionTraceRecord{" +
+                "actor='" + actorName + '\'' +
+                ", action='" + actionName + '\'' +
+                ", motive='" + motiveName + '\'' +
+                ", timeFactor=" + timeFactor +
+                ", currentValue=" + currentValue +
+                ", change=" + change +
+                ", utility=" + utility +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.liquidenthusiasm.webapp.model.trace;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+
+/**
+ * Receives the intermediate values an actor computes while scoring its candidate actions.
+ * <p>
+ * An actor asks {@link #traces(Actor)} once, when the tracer is attached; actors that are not traced keep no
+ * reference to the tracer, so an untraced decision costs a single null check.
+ */
+public interface DecisionTracer {
+    boolean traces(Actor actor);
+
+    void motiveUtility(Actor actor, Action action, Motive motive, double timeFactor, double currentValue, double change, double utility);
+}
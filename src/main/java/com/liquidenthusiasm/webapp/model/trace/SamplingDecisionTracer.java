@@ -0,0 +1,51 @@
+package com.liquidenthusiasm.webapp.model.trace;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+
+import java.util.function.Consumer;
+
+/**
+ * Traces roughly one in every {@code sampleRate} actors, chosen by actor name so the same actors are traced on
+ * every run, and hands each step of their decisions to a sink as a {@link DecisionTraceRecord}.
+ * The sink may be called from several threads at once when the world ticks in parallel.
+ */
+public class SamplingDecisionTracer implements DecisionTracer {
+    private final int sampleRate;
+    private final Consumer<DecisionTraceRecord> sink;
+
+    public SamplingDecisionTracer(Consumer<DecisionTraceRecord> sink) {
+        this(1, sink);
+    }
+
+    public SamplingDecisionTracer(int sampleRate, Consumer<DecisionTraceRecord> sink) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1, but got " + sampleRate);
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("Decision trace sink must be non-null");
+        }
+        this.sampleRate = sampleRate;
+        this.sink = sink;
+    }
+
+    @Override
+    public boolean traces(Actor actor) {
+        if (sampleRate == 1) {
+            return true;
+        }
+        String name = actor.getName();
+        int hash = name == null ? 0 : name.hashCode();
+        return (hash & Integer.MAX_VALUE) % sampleRate == 0;
+    }
+
+    @Override
+    public void motiveUtility(Actor actor, Action action, Motive motive, double timeFactor, double currentValue, double change, double utility) {
+        sink.accept(new DecisionTraceRecord(actor.getName(), action.getName(), motive.getName(), timeFactor, currentValue, change, utility));
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,64 @@
+package com.liquidenthusiasm.webapp.util;
+
+/**
+ * A stream of random numbers that is a pure function of its key and of how many numbers have been drawn from it,
+ * so it can be saved as those two longs and picked up again exactly where it left off.
+ * <p>
+ * The n-th number drawn is the SplitMix64 mix of {@code key + n * gamma}, which is the sequence a
+ * {@link java.util.SplittableRandom} seeded with the key produces. {@link #stream(long, long)} gives each of many
+ * streams off one seed a key of its own, so they don't overlap in practice. Not thread safe.
+ */
+public final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final long key;
+    private long draws;
+
+    public CounterRandom(long key) {
+        this(key, 0);
+    }
+
+    /**
+     * @param draws how many numbers have already been drawn from the stream with this key
+     */
+    public CounterRandom(long key, long draws) {
+        if (draws < 0) {
+            throw new IllegalArgumentException("Draw count must not be negative, but got " + draws);
+        }
+        this.key = key;
+        this.draws = draws;
+    }
+
+    /**
+     * @return the stream numbered {@code stream} off the seed, with nothing drawn from it yet
+     */
+    public static CounterRandom stream(long seed, long stream) {
+        return new CounterRandom(mix64(seed + GOLDEN_GAMMA * (stream + 1)));
+    }
+
+    public long nextLong() {
+        return mix64(key + GOLDEN_GAMMA * ++draws);
+    }
+
+    /**
+     * @return a number in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,51 +1,164 @@
 package com.liquidenthusiasm.webapp.util;
 
+import java.util.Spliterator;
 import java.util.stream.Collector;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Finds the element of a population with the highest quality.
+ * <p>
+ * Every variant treats ties the same way: the earliest element (in encounter order, or lowest index) wins, in
+ * parallel runs as well as sequential ones. Elements whose quality is NaN are never chosen. Negative qualities
+ * are fine; the best of an all-negative population is still found.
+ * <p>
+ * Populations of at least {@link #PARALLEL_THRESHOLD} elements are searched in parallel; smaller ones are not
+ * worth the cost of splitting up.
+ */
 public class Maxinator {
+    public static final int PARALLEL_THRESHOLD = 10_000;
+    public static final int NOT_FOUND = -1;
 
     @FunctionalInterface
     public interface QualityFunction<V> {
         double computeQuality(V value);
     }
 
+    @FunctionalInterface
+    public interface IntQualityFunction {
+        double computeQuality(int value);
+    }
+
+    @FunctionalInterface
+    public interface LongQualityFunction {
+        double computeQuality(long value);
+    }
+
+    @FunctionalInterface
+    public interface DoubleQualityFunction {
+        double computeQuality(double value);
+    }
+
+    /**
+     * Scores a position in some indexed population.
+     */
+    @FunctionalInterface
+    public interface IndexQualityFunction {
+        double computeQuality(int index);
+    }
+
     private Maxinator() {
 //        no public instances
     }
 
     private static final class AccumulateResult<T> {
         T bestItem = null;
-        double bestScore = Double.MIN_VALUE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        boolean found = false;
 
         public T getBestItem() {
             return bestItem;
         }
 
         public void accept(QualityFunction<T> function, T item) {
-            System.out.println("Quality function executed for " + item);
             double score = function.computeQuality(item);
-            if (score > bestScore) {
+            if (score > bestScore || (!found && score == bestScore)) {
                 bestScore = score;
                 bestItem = item;
+                found = true;
             }
         }
 
+        /**
+         * Combines with the result for the elements after this one's, so this one wins ties.
+         */
         public AccumulateResult<T> combine(AccumulateResult<T> r) {
-            if (r.bestScore > bestScore) {
+            if (r.found && (!found || r.bestScore > bestScore)) {
                 bestScore = r.bestScore;
                 bestItem = r.bestItem;
+                found = true;
             }
             return this;
         }
 
     }
 
-    public static <T> T getBest(final QualityFunction<T> qualityFunction, final Stream<T> population) {
-        return population.parallel().collect(Collector.of(
+    private static final class IndexResult {
+        int bestIndex = NOT_FOUND;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        void accept(IndexQualityFunction function, int index) {
+            double score = function.computeQuality(index);
+            if (score > bestScore || (bestIndex == NOT_FOUND && score == bestScore)) {
+                bestScore = score;
+                bestIndex = index;
+            }
+        }
+
+        void combine(IndexResult r) {
+            if (r.bestIndex != NOT_FOUND && (bestIndex == NOT_FOUND || r.bestScore > bestScore)) {
+                bestScore = r.bestScore;
+                bestIndex = r.bestIndex;
+            }
+        }
+    }
+
+    /**
+     * @return the element with the highest quality, or null if the population is empty. Populations known to be
+     * large are searched in parallel, known small ones sequentially, and otherwise the stream is used as it is.
+     */
+    public static <T> T getBest(final QualityFunction<T> qualityFunction, Stream<T> population) {
+        Spliterator<T> spliterator = population.spliterator();
+        long size = spliterator.getExactSizeIfKnown();
+        boolean parallel = size < 0 ? population.isParallel() : size >= PARALLEL_THRESHOLD;
+        return StreamSupport.stream(spliterator, parallel).onClose(population::close).collect(Collector.of(
                         AccumulateResult<T>::new,
                         (a, t) -> a.accept(qualityFunction, t),
                         (a, b) -> a.combine(b))
         ).getBestItem();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the index in {@code [from, to)} with the highest quality, or {@link #NOT_FOUND} if the range is
+     * empty or every quality is NaN
+     */
+    public static int getBest(int from, int to, IndexQualityFunction qualityFunction) {
+        if (from < 0 || from > to) {
+            throw new IllegalArgumentException(String.format("Invalid index range [%d, %d)", from, to));
+        }
+        if (to - from < PARALLEL_THRESHOLD) {
+            IndexResult result = new IndexResult();
+            for (int i = from; i < to; i++) {
+                result.accept(qualityFunction, i);
+            }
+            return result.bestIndex;
+        }
+        return IntStream.range(from, to).parallel().collect(
+                IndexResult::new,
+                (result, i) -> result.accept(qualityFunction, i),
+                IndexResult::combine
+        ).bestIndex;
+    }
+
+    /**
+     * @return the index of the element with the highest quality, or {@link #NOT_FOUND}
+     */
+    public static int getBest(int[] population, IntQualityFunction qualityFunction) {
+        return getBest(0, population.length, (i) -> qualityFunction.computeQuality(population[i]));
+    }
+
+    /**
+     * @return the index of the element with the highest quality, or {@link #NOT_FOUND}
+     */
+    public static int getBest(long[] population, LongQualityFunction qualityFunction) {
+        return getBest(0, population.length, (i) -> qualityFunction.computeQuality(population[i]));
+    }
+
+    /**
+     * @return the index of the element with the highest quality, or {@link #NOT_FOUND}
+     */
+    public static int getBest(double[] population, DoubleQualityFunction qualityFunction) {
+        return getBest(0, population.length, (i) -> qualityFunction.computeQuality(population[i]));
+    }
+}
@@ -0,0 +1,95 @@
+package com.liquidenthusiasm.webapp.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The curve {@code x^exponent}, with {@link Math#pow(double, double)} precomputed for every whole number
+ * {@code x} from 0 up to (but not including) the curve's size. Any other {@code x} falls through to
+ * {@link Math#pow(double, double)}, so {@link #at(double)} always returns exactly what that would.
+ * <p>
+ * Curves are immutable and safe to share between threads. {@link #of(double, int)} hands out shared curves,
+ * remembering up to {@value #MAX_SHARED} of them and starting afresh when that many have been asked for, so a
+ * few common exponents are shared while a great many different ones can't use up memory.
+ */
+public final class PowerCurve {
+    public static final int MAX_SHARED = 256;
+    private static final ConcurrentMap<Key, PowerCurve> shared = new ConcurrentHashMap<>();
+
+    private final double exponent;
+    private final double[] table;
+
+    public PowerCurve(double exponent, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("A curve can't have a negative size, but got " + size);
+        }
+        this.exponent = exponent;
+        this.table = new double[size];
+        for (int i = 0; i < size; i++) {
+            table[i] = Math.pow(i, exponent);
+        }
+    }
+
+    /**
+     * @return a shared curve with this exponent and size
+     */
+    public static PowerCurve of(double exponent, int size) {
+        Key key = new Key(exponent, size);
+        PowerCurve curve = shared.get(key);
+        if (curve == null) {
+            curve = new PowerCurve(exponent, size);
+            if (shared.size() >= MAX_SHARED) {
+                shared.clear();
+            }
+            PowerCurve existing = shared.putIfAbsent(key, curve);
+            if (existing != null) {
+                curve = existing;
+            }
+        }
+        return curve;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    public int size() {
+        return table.length;
+    }
+
+    /**
+     * @return {@code Math.pow(x, exponent)}, bit for bit, looked up rather than computed for small whole numbers
+     */
+    public double at(double x) {
+        int i = (int) x;
+        // -0.0 is left to Math.pow, which keeps its sign for odd whole exponents
+        if (i == x && i < table.length && (i > 0 || (i == 0 && Double.doubleToRawLongBits(x) == 0L))) {
+            return table[i];
+        }
+        return Math.pow(x, exponent);
+    }
+
+    private static final class Key {
+        private final long exponentBits;
+        private final int size;
+
+        private Key(double exponent, int size) {
+            this.exponentBits = Double.doubleToLongBits(exponent);
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return exponentBits == key.exponentBits && size == key.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(exponentBits) + size;
+        }
+    }
+}
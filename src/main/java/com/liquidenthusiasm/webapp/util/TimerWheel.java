@@ -0,0 +1,180 @@
+package com.liquidenthusiasm.webapp.util;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel: schedules payloads to fire on a given tick with O(1) schedule and cancel,
+ * and advancing one tick costs time proportional to the number of timers that fire (plus an occasional
+ * cascade from a coarser level).
+ * <p>
+ * Level 0 has one slot per tick for the next 64 ticks; each higher level has 64 slots that are each 64 times
+ * wider than the level below. When a coarse slot comes due its timers are redistributed to finer levels.
+ * Timers are intrusive nodes owned by the caller, so scheduling the same timer over and over allocates nothing.
+ * Not thread safe.
+ */
+public class TimerWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final Timer<T>[][] wheel;
+    private long now;
+    private int size = 0;
+
+    public TimerWheel() {
+        this(0);
+    }
+
+    public TimerWheel(long startTick) {
+        this.now = startTick;
+        @SuppressWarnings("unchecked")
+        Timer<T>[][] slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        wheel = slots;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> sentinel = new Timer<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[level][slot] = sentinel;
+            }
+        }
+    }
+
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * @return the number of timers currently scheduled
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules (or reschedules) a timer to fire on the given tick. Deadlines that are not after the current
+     * tick fire on the next call to {@link #advance(Consumer)}.
+     */
+    public void schedule(Timer<T> timer, long deadline) {
+        if (timer.isScheduled()) {
+            cancel(timer);
+        }
+        timer.deadline = Math.max(deadline, now + 1);
+        place(timer);
+        size++;
+    }
+
+    /**
+     * @return true if the timer was scheduled and has now been removed without firing
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward one tick and hands the payload of every timer due on the new tick to {@code expired}.
+     */
+    public void advance(Consumer<T> expired) {
+        now++;
+        if ((now & MASK) == 0) {
+            cascade(1);
+        }
+        Timer<T> timer = detach(wheel[0][(int) (now & MASK)]);
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            if (timer.deadline > now) {
+                place(timer);
+            } else {
+                size--;
+                expired.accept(timer.payload);
+            }
+            timer = next;
+        }
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int slot = (int) ((now >>> (BITS * level)) & MASK);
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+        Timer<T> timer = detach(wheel[level][slot]);
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Empties a slot, so its timers can be re-placed (possibly into the same slot) without being visited twice.
+     *
+     * @return the first timer that was in the slot, with the last one's {@code next} set to null
+     */
+    private Timer<T> detach(Timer<T> sentinel) {
+        if (sentinel.next == sentinel) {
+            return null;
+        }
+        Timer<T> first = sentinel.next;
+        sentinel.prev.next = null;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        return first;
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        Timer<T> sentinel = wheel[level][(int) ((timer.deadline >>> (BITS * level)) & MASK)];
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    public static final class Timer<T> {
+        private final T payload;
+        private long deadline;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        public Timer(T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return the tick this timer fires on; only meaningful while it is scheduled
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isScheduled() {
+            return next != null;
+        }
+    }
+}
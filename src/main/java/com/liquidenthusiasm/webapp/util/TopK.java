@@ -0,0 +1,207 @@
+package com.liquidenthusiasm.webapp.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Keeps the {@code k} highest scoring items offered to it, in a bounded heap: memory is O(k) no matter how many
+ * items are offered, and each offer costs O(log k) at worst and O(1) once the heap is full of better items.
+ * <p>
+ * Equal scores are settled in favour of the item offered first, including when the results of a parallel stream
+ * are combined (see {@link #collector(int, Maxinator.QualityFunction)}), so a sequential and a parallel run over
+ * the same ordered items keep the same items. Not thread safe.
+ */
+public class TopK<T> {
+    private final int k;
+    private final Object[] items;
+    private final double[] scores;
+    private final long[] sequence;
+    private int size = 0;
+    private long offered = 0;
+
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Must keep at least 1 item, but got " + k);
+        }
+        this.k = k;
+        this.items = new Object[k];
+        this.scores = new double[k];
+        this.sequence = new long[k];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == k;
+    }
+
+    /**
+     * @return the score an item has to beat to be kept: the lowest kept score once k items are kept, otherwise
+     * negative infinity
+     */
+    public double threshold() {
+        return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * @return true if the item was kept, which it is if fewer than k items are kept or it beats the lowest of them
+     */
+    public boolean offer(T item, double score) {
+        return offer(item, score, offered++);
+    }
+
+    private boolean offer(Object item, double score, long seq) {
+        if (Double.isNaN(score)) {
+            return false;
+        }
+        if (size < k) {
+            int i = size++;
+            set(i, item, score, seq);
+            siftUp(i);
+            return true;
+        }
+        if (!better(score, seq, scores[0], sequence[0])) {
+            return false;
+        }
+        set(0, item, score, seq);
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Adds everything another collector kept, as though its items had been offered after all of this one's.
+     */
+    public TopK<T> combine(TopK<T> other) {
+        long offset = offered;
+        for (int i = 0; i < other.size; i++) {
+            offer(other.items[i], other.scores[i], offset + other.sequence[i]);
+        }
+        offered += other.offered;
+        return this;
+    }
+
+    /**
+     * @return the kept items, best first
+     */
+    @SuppressWarnings("unchecked")
+    public List<Scored<T>> toList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> better(scores[a], sequence[a], scores[b], sequence[b]) ? -1 : 1);
+        List<Scored<T>> result = new ArrayList<>(size);
+        for (Integer i : order) {
+            result.add(new Scored<>((T) items[i], scores[i]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        offered = 0;
+    }
+
+    /**
+     * Higher scores are better, and for equal scores the one offered first is.
+     */
+    private static boolean better(double score, long seq, double otherScore, long otherSeq) {
+        return score > otherScore || (score == otherScore && seq < otherSeq);
+    }
+
+    private void set(int i, Object item, double score, long seq) {
+        items[i] = item;
+        scores[i] = score;
+        sequence[i] = seq;
+    }
+
+    // the root holds the worst kept item, so it is the one to compare against and replace
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(scores[parent], sequence[parent], scores[i], sequence[i])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && better(scores[worst], sequence[worst], scores[left], sequence[left])) {
+                worst = left;
+            }
+            if (right < size && better(scores[worst], sequence[worst], scores[right], sequence[right])) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Object item = items[a];
+        double score = scores[a];
+        long seq = sequence[a];
+        set(a, items[b], scores[b], sequence[b]);
+        set(b, item, score, seq);
+    }
+
+    /**
+     * A collector keeping the {@code k} items with the highest quality, best first. Each item's quality is computed
+     * exactly once, and each (possibly parallel) partition holds at most {@code k} items.
+     */
+    public static <T> Collector<T, TopK<T>, List<Scored<T>>> collector(int k, Maxinator.QualityFunction<T> qualityFunction) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Must keep at least 1 item, but got " + k);
+        }
+        return Collector.of(
+                () -> new TopK<>(k),
+                (top, item) -> top.offer(item, qualityFunction.computeQuality(item)),
+                TopK::combine,
+                TopK::toList);
+    }
+
+    /**
+     * An item with the score it was kept for.
+     */
+    public static final class Scored<T> {
+        private final T item;
+        private final double score;
+
+        public Scored(T item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return item + "=" + score;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.liquidenthusiasm.webapp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.Simulation;
+import com.liquidenthusiasm.webapp.model.World;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SimulationControllerTest extends BaseControllerTestCase {
+    @Autowired
+    private SimulationController controller;
+
+    private MockMvc mockMvc;
+    private Simulation configured;
+    private Simulation simulation;
+
+    @Before
+    public void setUp() {
+        configured = controller.getSimulation();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @After
+    public void tearDown() {
+        controller.setSimulation(configured);
+        controller.setMaxStreams(100);
+        configured.stop();
+        if (simulation != null) {
+            simulation.close();
+        }
+    }
+
+    private void startSimulation() {
+        Motive hunger = new Motive("streamHunger").min(0).max(100);
+        Actor actor = new Actor("eater");
+        actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.addMotive(hunger, 20);
+        actor.addAction(new MotivatedAction("streamEat").motive(hunger, -3));
+        World world = new World(1, 7);
+        world.addActor(actor);
+        simulation = new Simulation(world);
+        controller.setSimulation(simulation);
+        simulation.start(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits for the streams the controller is writing to finish.
+     *
+     * @return what was streamed
+     */
+    private String streamed(MvcResult result) throws Exception {
+        assertTrue(result.getRequest().isAsyncStarted() || controller.getOpenStreams() == 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (controller.getOpenStreams() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, controller.getOpenStreams());
+        return result.getResponse().getContentAsString();
+    }
+
+    @Test
+    public void testConfiguredSimulation() throws Exception {
+        assertEquals(100, configured.getWorld().getActors().size());
+        configured.start(1, TimeUnit.MILLISECONDS);
+        String body = streamed(mockMvc.perform(get("/simulation/stream")
+            .param("format", "ndjson").param("maxFrames", "1"))
+            .andExpect(status().isOk())
+            .andReturn());
+
+        JsonNode frame = new ObjectMapper().readTree(body);
+        assertEquals(100, frame.get("actors").size());
+        assertEquals("villager 0", frame.get("actors").get(0).get("name").asText());
+    }
+
+    @Test
+    public void testNoSimulationConfigured() throws Exception {
+        controller.setSimulation(null);
+        mockMvc.perform(get("/simulation/stream"))
+            .andExpect(status().is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        mockMvc.perform(post("/admin/simulation/start"))
+            .andExpect(status().is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+
+    @Test
+    public void testUnknownFormat() throws Exception {
+        startSimulation();
+        mockMvc.perform(get("/simulation/stream").param("format", "xml"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testServerSentEvents() throws Exception {
+        startSimulation();
+        String body = streamed(mockMvc.perform(get("/simulation/stream").param("maxFrames", "2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/event-stream"))
+            .andReturn());
+
+        String[] events = body.split("\n\n");
+        assertEquals(2, events.length);
+        long lastTick = -1;
+        for (String event : events) {
+            assertTrue(event, event.startsWith("data: "));
+            JsonNode frame = new ObjectMapper().readTree(event.substring("data: ".length()));
+            assertTrue(frame.get("tick").asLong() > lastTick);
+            lastTick = frame.get("tick").asLong();
+            assertEquals("eater", frame.get("actors").get(0).get("name").asText());
+        }
+    }
+
+    @Test
+    public void testNewlineDelimitedJson() throws Exception {
+        startSimulation();
+        String body = streamed(mockMvc.perform(get("/simulation/stream")
+            .param("format", "ndjson").param("maxFrames", "3"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andReturn());
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            JsonNode frame = new ObjectMapper().readTree(line);
+            assertEquals("eater", frame.get("actors").get(0).get("name").asText());
+        }
+    }
+
+    @Test
+    public void testStreamingDoesNotHoldTheRequestThread() throws Exception {
+        startSimulation();
+        MvcResult result = mockMvc.perform(get("/simulation/stream").param("format", "ndjson"))
+            .andExpect(status().isOk())
+            .andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertEquals(1, controller.getOpenStreams());
+
+        result.getRequest().getAsyncContext().complete();
+        streamed(result);
+        assertEquals(0, simulation.getFeed().getSubscriberCount());
+    }
+
+    @Test
+    public void testTooManyStreams() throws Exception {
+        startSimulation();
+        controller.setMaxStreams(0);
+        mockMvc.perform(get("/simulation/stream").param("maxFrames", "1"))
+            .andExpect(status().is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        assertEquals(0, controller.getOpenStreams());
+    }
+
+    @Test
+    public void testStartAndStop() throws Exception {
+        startSimulation();
+        simulation.stop();
+        mockMvc.perform(post("/admin/simulation/start").param("tickMillis", "5"))
+            .andExpect(status().isNoContent());
+        assertTrue(simulation.isRunning());
+        mockMvc.perform(post("/admin/simulation/stop"))
+            .andExpect(status().isNoContent());
+        assertFalse(simulation.isRunning());
+    }
+}
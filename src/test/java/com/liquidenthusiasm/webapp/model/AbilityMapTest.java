@@ -5,9 +5,17 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class AbilityMapTest {
     AbilityMap map;
@@ -35,6 +43,27 @@ public class AbilityMapTest {
         assertEquals("value of " + ability1 + " vs " + ability2 + " after deserialize", someStrength, map.getRelationship(ability1, ability2));
     }
 
+    @Test
+    public void deserializingKeepsEveryAbilitysId() throws IOException {
+        map.setRelationship("earth", "air", 3);
+        map.setRelationship("earth", "air", 0);
+        map.setRelationship("air", "water", -2);
+        ObjectMapper mapper = new ObjectMapper();
+        AbilityMap deserialized = mapper.readValue(mapper.writeValueAsString(map), AbilityMap.class);
+        assertEquals(new ArrayList<>(map.getAbilityList()), new ArrayList<>(deserialized.getAbilityList()));
+        for (String ability : map.getAbilityList()) {
+            assertEquals(ability, map.abilityId(ability), deserialized.abilityId(ability));
+        }
+        assertEquals(0, deserialized.getRelationship("earth", "air"));
+        assertEquals(2, deserialized.getRelationship("water", "air"));
+        assertEquals(someStrength, deserialized.getRelationship(ability1, ability2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void abilitiesMayOnlyBeListedOnce() throws IOException {
+        new ObjectMapper().readValue("{\"abilities\": [\"fire\", \"fire\"], \"relations\": []}", AbilityMap.class);
+    }
+
     @Test
     public void addingOneAbilityPairGivesEntriesForBoth() {
         map = new AbilityMap();
@@ -98,4 +127,104 @@ public class AbilityMapTest {
     public void notAllowedToInsertBlankAsSecond() {
         map.addRelationship(ability1, " ", someStrength);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void setRelationshipKeepsTheGivenOrder() {
+        map = new AbilityMap();
+        map.setRelationship(ability2, ability1, 7);
+        assertEquals(7, map.getRelationship(ability2, ability1));
+        assertEquals(-7, map.getRelationship(ability1, ability2));
+    }
+
+    @Test
+    public void matchesAMapOfMapsAsItFillsUpAndEmptiesOut() {
+        Random random = new Random(3);
+        map = new AbilityMap();
+        Map<String, Integer> expected = new HashMap<>();
+        boolean wasDense = false;
+        int abilityCount = 40;
+        for (int round = 0; round < 2000; round++) {
+            String a = "ability" + random.nextInt(abilityCount);
+            String b = "ability" + random.nextInt(abilityCount);
+            int power = random.nextInt(41) - 20;
+            map.addRelationship(a, b, power);
+            String first = a.compareTo(b) <= 0 ? a : b;
+            String second = a.compareTo(b) <= 0 ? b : a;
+            expected.put(first + "/" + second, power);
+            wasDense |= map.isDense();
+        }
+        assertTrue("filled up enough to go dense", wasDense);
+        for (int i = 0; i < 400; i++) {
+            map.addRelationship("rare" + i, "rarer" + i, i);
+            expected.put("rare" + i + "/rarer" + i, i);
+        }
+        assertFalse("many barely related abilities make it sparse again", map.isDense());
+        assertEquals(expected.size(), map.getRelationshipCount());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            String[] pair = entry.getKey().split("/");
+            assertEquals(entry.getKey(), (int) entry.getValue(), map.getRelationship(pair[0], pair[1]));
+            if (!pair[0].equals(pair[1])) {
+                assertEquals(entry.getKey(), -entry.getValue(), map.getRelationship(pair[1], pair[0]));
+            }
+        }
+        int[] visited = new int[1];
+        map.forEachRelationship((id1, id2, power) -> {
+            assertTrue(id1 <= id2);
+            assertEquals(map.getRelationship(map.abilityName(id1), map.abilityName(id2)), power);
+            visited[0]++;
+        });
+        assertEquals(expected.size(), visited[0]);
+    }
+
+    @Test
+    public void resolvesManyPairsAtOnce() {
+        map.addRelationship("earth", "air", 3);
+        String[] first = {ability1, ability2, "earth", "air", "unknown", null};
+        String[] second = {ability2, ability1, "air", "earth", ability1, ability2};
+        int[] expected = new int[first.length];
+        for (int i = 0; i < first.length; i++) {
+            expected[i] = map.getRelationship(first[i], second[i]);
+        }
+        assertArrayEquals(expected, map.getRelationships(first, second));
+
+        int[] out = new int[first.length];
+        map.getRelationships(map.abilityIds(first), map.abilityIds(second), out);
+        assertArrayEquals(expected, out);
+        assertEquals(AbilityMap.NO_ABILITY, map.abilityId("unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkLookupsNeedRoomForEveryPair() {
+        map.getRelationships(new int[2], new int[2], new int[1]);
+    }
+
+    @Test
+    public void unknownIdsRelateAsNothingWhetherSparseOrDense() {
+        map = new AbilityMap();
+        map.setRelationship("fire", "water", -2);
+        for (int i = 0; i < 20; i++) {
+            map.setRelationship("rare" + i, "rarer" + i, i);
+        }
+        assertFalse(map.isDense());
+        assertUnknownIdsRelateAsNothing();
+
+        List<String> names = new ArrayList<>(map.getAbilityList());
+        for (int i = 2; i < names.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                map.setRelationship(names.get(j), names.get(i), 1);
+            }
+        }
+        assertTrue(map.isDense());
+        assertUnknownIdsRelateAsNothing();
+    }
+
+    private void assertUnknownIdsRelateAsNothing() {
+        int unknown = map.getAbilityCount();
+        assertEquals(0, map.getRelationship(0, unknown));
+        assertEquals(0, map.getRelationship(unknown + 100, 1));
+        assertEquals(0, map.getRelationship(0, AbilityMap.NO_ABILITY));
+        int[] out = new int[3];
+        map.getRelationships(new int[]{0, unknown, 0}, new int[]{1, 0, Integer.MAX_VALUE}, out);
+        assertArrayEquals(new int[]{-2, 0, 0}, out);
+    }
+}
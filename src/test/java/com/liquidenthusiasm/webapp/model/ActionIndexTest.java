@@ -0,0 +1,159 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ItemProvidingAction;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ActionIndexTest extends BaseSandbox {
+    private Motive hunger;
+    private Motive boredom;
+    private Actor actor;
+
+    @Before
+    public void setUp() {
+        hunger = new Motive("indexHunger").min(0).max(100);
+        boredom = new Motive("indexBoredom").min(0).max(100);
+        actor = new Actor("indexed");
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.registerDesire(boredom, 0, 0, 0);
+    }
+
+    @Test
+    public void actionsOnlyChangingSatisfiedMotivesAreNotScored() {
+        actor.addMotive(boredom, 50);
+        Action eat = new MotivatedAction("eat").motive(hunger, -1);
+        Action play = new MotivatedAction("play").motive(boredom, -5);
+        actor.addAction(eat);
+        actor.addAction(play);
+        assertEquals(play, actor.considerNextAction());
+        assertEquals("only play was scored", 1, actor.getUtilityCache().getMisses());
+
+        actor.addMotive(hunger, 10);
+        assertEquals(play, actor.considerNextAction());
+        assertEquals("eat is scored once hunger is unsatisfied", 2, actor.getUtilityCache().getMisses());
+    }
+
+    @Test
+    public void nothingIsChosenWhenEveryMotiveIsSatisfied() {
+        actor.addAction(new MotivatedAction("eat").motive(hunger, -1));
+        assertNull(actor.considerNextAction());
+        assertEquals(0, actor.getUtilityCache().getMisses());
+    }
+
+    @Test
+    public void followsItemsAsTheyAreAddedAndRemoved() {
+        actor.addMotive(boredom, 50);
+        Action sit = new MotivatedAction("sit").motive(boredom, -1);
+        actor.addAction(sit);
+        Item ball = createItem("index ball");
+        Action bounce = new MotivatedAction("bounce").motive(boredom, -10);
+        ball.addAction(bounce);
+        assertEquals(sit, processTurn(actor));
+
+        actor.addItem(ball);
+        assertEquals(bounce, processTurn(actor));
+
+        actor.removeItem(ball);
+        assertEquals(sit, processTurn(actor));
+    }
+
+    @Test
+    public void followsActionsAsTheyAreAddedAndRemoved() {
+        actor.addMotive(boredom, 50);
+        Action sit = new MotivatedAction("sit").motive(boredom, -1);
+        Action play = new MotivatedAction("play").motive(boredom, -5);
+        actor.addAction(sit);
+        assertEquals(sit, processTurn(actor));
+        actor.addAction(play);
+        assertEquals(play, processTurn(actor));
+        actor.removeAction(play);
+        assertEquals(sit, processTurn(actor));
+    }
+
+    @Test
+    public void followsAnActionBeingSwappedForAnother() {
+        actor.addMotive(boredom, 50);
+        Action sit = new MotivatedAction("sit").motive(boredom, -1);
+        Action eat = new MotivatedAction("eat").motive(hunger, -1);
+        actor.addAction(eat);
+        assertNull(processTurn(actor));
+        actor.removeAction(eat);
+        actor.addAction(sit);
+        assertEquals(sit, processTurn(actor));
+    }
+
+    @Test
+    public void picksUpRedefinedActions() {
+        actor.addMotive(boredom, 50);
+        MotivatedAction read = new MotivatedAction("read").motive(hunger, 0);
+        actor.addAction(read);
+        assertNull(actor.considerNextAction());
+
+        read.motive(boredom, -5);
+        assertEquals(read, actor.considerNextAction());
+    }
+
+    @Test
+    public void itemProvidingActionsAreIndexedByTheProvidedItemsMotives() {
+        actor.addMotive(hunger, 50);
+        Item apple = createItem("index apple");
+        apple.addAction(new MotivatedAction("eat apple").motive(hunger, -10));
+        Action pick = new ItemProvidingAction("pick apple").providesItem(apple);
+        actor.addAction(pick);
+        assertEquals(pick, actor.considerNextAction());
+    }
+
+    @Test
+    public void actionsWithUnknownMotivesAreAlwaysScored() {
+        actor.addMotive(boredom, 50);
+        Action custom = new MotivatedAction("custom") {
+            @Override
+            public boolean hasStableMotives() {
+                return false;
+            }
+        }.motive(boredom, -5);
+        actor.addAction(custom);
+        actor.considerNextAction();
+        actor.addMotive(boredom, -50);
+        actor.considerNextAction();
+        assertEquals("scored even with every motive satisfied", 2, actor.getUtilityCache().getMisses());
+    }
+
+    @Test
+    public void removingAnItemLeavesOthersSharingItsMotives() {
+        actor.addMotive(boredom, 50);
+        actor.addMotive(hunger, 50);
+        Item ball = createItem("index ball");
+        Action bounce = new MotivatedAction("bounce").motive(boredom, -10).motive(hunger, -2);
+        ball.addAction(bounce);
+        ball.addAction(new MotivatedAction("kick").motive(boredom, -8));
+        Item snack = createItem("index snack");
+        Action munch = new MotivatedAction("munch").motive(hunger, -5).motive(boredom, -1);
+        snack.addAction(munch);
+        Item toy = createItem("index toy");
+        toy.addAction(new MotivatedAction("wind up") {
+            @Override
+            public boolean hasStableMotives() {
+                return false;
+            }
+        }.motive(boredom, -30));
+        actor.addItem(ball);
+        actor.addItem(snack);
+        actor.addItem(toy);
+
+        actor.removeItem(toy);
+        assertEquals(bounce, processTurn(actor));
+        actor.removeItem(ball);
+        assertEquals(munch, processTurn(actor));
+        actor.removeItem(snack);
+        assertNull(processTurn(actor));
+    }
+}
@@ -0,0 +1,104 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.ItemProvidingAction;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ActionPlannerTest extends BaseSandbox {
+    private Motive appetite;
+    private Actor actor;
+    private MotivatedAction snack;
+    private ItemProvidingAction getBox;
+
+    /**
+     * The box's first action barely helps, so borrowing it makes getting the box look worse than a snack; only
+     * looking past it to the food inside shows the box is the better choice.
+     */
+    @Before
+    public void setUp() {
+        appetite = new Motive("plannerAppetite").min(0).max(100);
+        actor = new Actor("planner");
+        actor.registerDesire(appetite, 0, 0, 0);
+        actor.addMotive(appetite, 50);
+
+        Item meal = createItemWithCharges("meal", 1);
+        meal.addAction(new MotivatedAction("eats").motive(appetite, -40));
+        Item box = createItem("box");
+        box.addAction(new MotivatedAction("shakes").motive(appetite, -1));
+        box.addAction(new ItemProvidingAction("opens").providesItem(meal));
+
+        snack = new MotivatedAction("snacks").motive(appetite, -5);
+        getBox = new ItemProvidingAction("gets box").providesItem(box);
+        actor.addAction(snack);
+        actor.addAction(getBox);
+    }
+
+    @Test
+    public void plannersAreNotTimedByDefault() {
+        assertEquals(ActionPlanner.NO_TIME_LIMIT, new ActionPlanner().getMaxNanos());
+    }
+
+    @Test
+    public void greedyActorTakesTheSnack() {
+        assertSame(snack, actor.considerNextAction());
+    }
+
+    @Test
+    public void plannerLooksPastTheFirstActionOfAnItem() {
+        ActionPlanner planner = new ActionPlanner();
+        actor.setPlanner(planner);
+        assertSame(getBox, actor.considerNextAction());
+        assertTrue(planner.getLastDecisionNodes() > 0);
+        assertEquals(0, planner.getTruncatedDecisions());
+    }
+
+    @Test
+    public void depthOfOneIsGreedy() {
+        actor.setPlanner(new ActionPlanner().maxDepth(1));
+        assertSame(snack, actor.considerNextAction());
+    }
+
+    @Test
+    public void exhaustedBudgetFallsBackToGreedy() {
+        ActionPlanner planner = new ActionPlanner().maxNodes(0);
+        actor.setPlanner(planner);
+        assertSame(snack, actor.considerNextAction());
+        assertEquals(1, planner.getTruncatedDecisions());
+    }
+
+    @Test
+    public void rankingUsesPlannedValues() {
+        actor.setPlanner(new ActionPlanner());
+        Action best = actor.rankActions(1).get(0).getItem();
+        assertSame(getBox, best);
+    }
+
+    @Test
+    public void plannedChainIsFollowedToTheEnd() {
+        actor.setPlanner(new ActionPlanner());
+        assertSame(getBox, processTurn(actor));
+        assertEquals("opens", processTurn(actor).getName());
+        assertEquals("eats", processTurn(actor).getName());
+        assertEquals(10, actor.getMotive(appetite), EPSILON);
+    }
+
+    @Test
+    public void memoCapacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(64, new ActionPlanner().memoCapacity(33).getMemoCapacity());
+        assertEquals(1, new ActionPlanner().memoCapacity(1).getMemoCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void depthMustBePositive() {
+        new ActionPlanner().maxDepth(0);
+    }
+}
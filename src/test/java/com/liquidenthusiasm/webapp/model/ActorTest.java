@@ -8,9 +8,13 @@ import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
 import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
 import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import com.liquidenthusiasm.webapp.util.CounterRandom;
+import com.liquidenthusiasm.webapp.util.TopK;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -39,6 +43,22 @@ public class ActorTest extends BaseSandbox {
         assertEquals(1, actor.getMotiveUpdates().size());
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void ownActionsCanOnlyBeChangedThroughTheActor() {
+        actor.getActions(actor).add(new MotivatedAction("sneak"));
+    }
+
+    @Test
+    public void candidateActionsFollowAnActionBeingSwappedForAnother() {
+        Action eat = new MotivatedAction("eat");
+        Action nap = new MotivatedAction("nap");
+        actor.addAction(eat);
+        assertArrayEquals(new Action[]{eat}, actor.getCandidateActions(actor));
+        actor.removeAction(eat);
+        actor.addAction(nap);
+        assertArrayEquals(new Action[]{nap}, actor.getCandidateActions(actor));
+    }
+
     @Test
     public void updatingActorUpdatesAllMotives() {
         Motive m1 = arbitraryMotive();
@@ -104,6 +124,7 @@ public class ActorTest extends BaseSandbox {
         actor.addAction(eatGrass);
         actor.addAction(eatLeaves);
         actor.addMotive(hunger, 100);
+        actor.setRandom(new CounterRandom(1));
 
         for (int i = 0; i < 100; i++) {
             processTurn(actor);
@@ -116,6 +137,68 @@ public class ActorTest extends BaseSandbox {
         assertTrue("Diff is " + diff + ", expected < 25", diff < 25);
     }
 
+    @Test
+    public void utilityIsReusedWhileRelevantMotivesAreUnchanged() {
+        makeActorHungry(50);
+        makeActorBored(50);
+        actor.addAction(new MotivatedAction("eat").motive(hunger, -1));
+        actor.addAction(new MotivatedAction("rest").motive(boredom, -1));
+        actor.considerNextAction();
+        UtilityCache cache = actor.getUtilityCache();
+        assertEquals("first decision", 0, cache.getHits());
+        assertEquals("first decision", 2, cache.getMisses());
+
+        actor.considerNextAction();
+        assertEquals("nothing changed", 2, cache.getHits());
+
+        actor.addMotive(boredom, 1);
+        actor.considerNextAction();
+        assertEquals("only boredom changed", 3, cache.getHits());
+        assertEquals("only boredom changed", 3, cache.getMisses());
+
+        actor.setMotiveWeight(hunger, 2);
+        actor.registerDesire(boredom, 0, 1, 1);
+        actor.considerNextAction();
+        assertEquals("weight and desire changed", 5, cache.getMisses());
+        assertEquals(3d / 8, cache.getHitRate(), EPSILON);
+    }
+
+    @Test
+    public void changingForesightInvalidatesCachedUtility() {
+        makeActorHungry(50);
+        actor.addAction(new MotivatedAction("eat").motive(hunger, -1));
+        actor.considerNextAction();
+        actor.setForesight(0.5);
+        actor.considerNextAction();
+        assertEquals(0, actor.getUtilityCache().getHits());
+        assertEquals(2, actor.getUtilityCache().getMisses());
+    }
+
+    @Test
+    public void canRankTheBestActions() {
+        makeActorHungry(50);
+        makeActorBored(50);
+        Action feast = new MotivatedAction("feast").motive(hunger, -20);
+        Action snack = new MotivatedAction("snack").motive(hunger, -5);
+        Action nap = new MotivatedAction("nap").motive(boredom, -10);
+        Action overeat = new MotivatedAction("overeat").motive(hunger, 10);
+        actor.addAction(feast);
+        actor.addAction(snack);
+        actor.addAction(overeat);
+        Item pillow = new Item("pillow");
+        pillow.addAction(nap);
+        actor.addItem(pillow);
+
+        List<TopK.Scored<Action>> ranking = actor.rankActions(3);
+        assertEquals(3, ranking.size());
+        assertEquals(feast, ranking.get(0).getItem());
+        assertTrue(ranking.get(0).getScore() > ranking.get(1).getScore());
+        assertTrue(ranking.get(1).getScore() > ranking.get(2).getScore());
+        assertEquals(nap, ranking.get(1).getItem());
+        assertEquals(snack, ranking.get(2).getItem());
+        assertEquals("ranking does not choose an action", null, actor.performNextAction());
+    }
+
     private void makeActorBored(double amount) {
         actor.addMotive(boredom, amount);
         actor.registerDesire(boredom, 0, 0, 0);
@@ -626,6 +709,6 @@ public class ActorTest extends BaseSandbox {
     }
 
     private Motive arbitraryMotive() {
-        return mock(Motive.class);
+        return new Motive();
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.Action;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
+import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import com.liquidenthusiasm.webapp.model.trace.SamplingDecisionTracer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UtilityBoundTest extends BaseSandbox {
+    private Motive hunger;
+    private Motive boredom;
+
+    @Before
+    public void setUp() {
+        hunger = new Motive("boundHunger").min(-100).max(100);
+        boredom = new Motive("boundBoredom").min(-100).max(100);
+    }
+
+    @Test
+    public void boundIsNeverBelowTheUtilityOfAnActionItCovers() {
+        Random random = new Random(7);
+        Motive[] motives = {hunger, boredom};
+        for (int scenario = 0; scenario < 500; scenario++) {
+            Map<String, Double> utilities = new HashMap<>();
+            Actor actor = new Actor("bounded" + scenario);
+            actor.setDecisionTracer(new SamplingDecisionTracer(record ->
+                    utilities.merge(record.getActionName(), record.getUtility(), Double::sum)));
+            actor.setForesight(random.nextDouble() * 2);
+            for (Motive motive : motives) {
+                int min = random.nextInt(40) - 20;
+                int max = min + random.nextInt(40);
+                actor.registerDesire(motive, min, min + random.nextInt(max - min + 1), max);
+                actor.addMotive(motive, random.nextInt(200) - 100);
+                actor.setMotiveWeight(motive, random.nextDouble() * 3);
+            }
+            MotivatedAction action = new MotivatedAction("bounded action");
+            for (Motive motive : motives) {
+                if (random.nextBoolean()) {
+                    action.motive(motive, random.nextInt(81) - 40);
+                }
+            }
+            action.setCompletionTime(1 + random.nextInt(4));
+            actor.addAction(action);
+            actor.considerNextAction();
+
+            double utility = utilities.getOrDefault("bounded action", 0d);
+            double bound = actor.utilityBound(MotiveVector.EMPTY.maxMagnitude(action.getExpectedMotiveVector(actor)));
+            assertTrue("scenario " + scenario + ": " + utility + " > " + bound, utility <= bound + 1e-9);
+        }
+    }
+
+    @Test
+    public void providersThatCannotBeatTheBestAreSkipped() {
+        Actor actor = new Actor("skipper");
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.registerDesire(boredom, 0, 0, 0);
+        actor.addMotive(hunger, 90);
+        actor.addMotive(boredom, 1);
+        Action eat = new MotivatedAction("eat").motive(hunger, -50);
+        actor.addAction(eat);
+        Item toy = createItem("bound toy");
+        toy.addAction(new MotivatedAction("fidget").motive(boredom, -1));
+        actor.addItem(toy);
+
+        assertEquals(eat, actor.considerNextAction());
+        assertEquals(1, actor.getSkippedProviderCount());
+        assertEquals("the toy's action was never scored", 1, actor.getUtilityCache().getMisses());
+    }
+
+    @Test
+    public void providersThatMightBeatTheBestAreNotSkipped() {
+        Actor actor = new Actor("chooser");
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.registerDesire(boredom, 0, 0, 0);
+        actor.addMotive(hunger, 10);
+        actor.addMotive(boredom, 90);
+        actor.addAction(new MotivatedAction("snack").motive(hunger, -5));
+        Item toy = createItem("bound ball");
+        Action play = new MotivatedAction("play").motive(boredom, -40);
+        toy.addAction(play);
+        actor.addItem(toy);
+
+        assertEquals(play, actor.considerNextAction());
+        assertEquals(0, actor.getSkippedProviderCount());
+    }
+
+    @Test
+    public void providersWithUnknownMotivesHaveNoBound() {
+        Actor actor = new Actor("unbounded");
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.addMotive(hunger, 50);
+        actor.addAction(new MotivatedAction("custom") {
+            @Override
+            public boolean hasStableMotives() {
+                return false;
+            }
+        }.motive(hunger, -1));
+        assertEquals(Double.POSITIVE_INFINITY, actor.getUtilityBound(actor), 0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.liquidenthusiasm.webapp.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class VersionedAbilityMapTest {
+    private VersionedAbilityMap abilities;
+
+    @Before
+    public void setUp() {
+        AbilityMap initial = new AbilityMap();
+        initial.addRelationship("fire", "water", -2);
+        abilities = new VersionedAbilityMap(initial);
+        initial.addRelationship("fire", "ice", 9);
+    }
+
+    @Test
+    public void startsWithACopyOfTheInitialMap() {
+        assertEquals(0, abilities.getVersion());
+        assertEquals(-2, abilities.getRelationship("fire", "water"));
+        assertEquals(0, abilities.getRelationship("fire", "ice"));
+    }
+
+    @Test
+    public void editsPublishNewVersionsAndLeaveOldSnapshotsAlone() {
+        AbilityMapSnapshot before = abilities.snapshot();
+        AbilityMapSnapshot after = abilities.edit(map -> {
+            map.addRelationship("fire", "water", 5);
+            map.addRelationship("earth", "air", 3);
+        });
+        assertSame(after, abilities.snapshot());
+        assertEquals(1, after.getVersion());
+        assertEquals(5, after.getRelationship("fire", "water"));
+        assertEquals(-2, before.getRelationship("fire", "water"));
+        assertEquals(0, before.getRelationship("earth", "air"));
+        assertEquals(before.abilityId("water"), after.abilityId("water"));
+        assertEquals(2, abilities.addRelationship("a", "b", 1).getVersion());
+    }
+
+    @Test
+    public void failedBatchesPublishNothing() {
+        try {
+            abilities.edit(map -> {
+                map.addRelationship("fire", "water", 5);
+                map.addRelationship("fire", " ", 1);
+            });
+            fail("blank abilities are refused");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, abilities.getVersion());
+        assertEquals(-2, abilities.getRelationship("fire", "water"));
+    }
+
+    @Test
+    public void snapshotsCanNotBeChangedThroughTheirCopies() {
+        AbilityMapSnapshot snapshot = abilities.snapshot();
+        snapshot.toAbilityMap().addRelationship("fire", "water", 100);
+        assertEquals(-2, snapshot.getRelationship("fire", "water"));
+    }
+
+    @Test
+    public void readersAlwaysSeeWholeBatches() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long lastVersion = -1;
+                while (!done.get()) {
+                    AbilityMapSnapshot snapshot = abilities.snapshot();
+                    int first = snapshot.getRelationship("earth", "air");
+                    int second = snapshot.getRelationship("light", "dark");
+                    if (first != second || snapshot.getVersion() < lastVersion) {
+                        failure.compareAndSet(null, "version " + snapshot.getVersion() + ": " + first + " vs " + second);
+                    }
+                    lastVersion = snapshot.getVersion();
+                }
+            });
+            readers[r].start();
+        }
+        for (int i = 1; i <= 2000; i++) {
+            int power = i;
+            abilities.edit(map -> {
+                map.addRelationship("earth", "air", power);
+                map.addRelationship("light", "dark", power);
+            });
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(2000, abilities.getVersion());
+    }
+
+    @Test
+    public void replacingPublishesACopy() {
+        AbilityMap replacement = new AbilityMap();
+        replacement.addRelationship("earth", "air", 4);
+        AbilityMapSnapshot snapshot = abilities.replace(replacement);
+        replacement.addRelationship("earth", "air", 8);
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(4, abilities.getRelationship("air", "earth"));
+        assertEquals(0, abilities.getRelationship("fire", "water"));
+    }
+
+    @Test
+    public void aMapKeptFromAnEditCanNotChangeThePublishedSnapshot() {
+        AtomicReference<AbilityMap> kept = new AtomicReference<>();
+        AbilityMapSnapshot published = abilities.edit(kept::set);
+        try {
+            kept.get().addRelationship("fire", "water", 100);
+            fail("a published map was changed");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(-2, published.getRelationship("fire", "water"));
+    }
+
+    @Test
+    public void worldsShareTheirAbilitiesAsVersionedSnapshots() {
+        try (World world = new World(1)) {
+            AbilityMapSnapshot before = world.getAbilityMap().snapshot();
+            world.getAbilityMap().addRelationship("fire", "water", -2);
+            AbilityMap replacement = new AbilityMap();
+            replacement.addRelationship("earth", "air", 3);
+            world.setAbilityMap(replacement);
+            assertEquals(0, before.getRelationshipCount());
+            assertEquals(2, world.getAbilityMap().getVersion());
+            assertEquals(0, world.getAbilityMap().getRelationship("fire", "water"));
+            assertEquals(3, world.getAbilityMap().getRelationship("air", "earth"));
+        }
+    }
+}
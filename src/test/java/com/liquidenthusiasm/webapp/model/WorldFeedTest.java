@@ -0,0 +1,164 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WorldFeedTest extends BaseSandbox {
+    private Motive hunger;
+    private MotivatedAction eat;
+    private World world;
+
+    @Before
+    public void setUp() {
+        hunger = new Motive("feedHunger").min(0).max(100);
+        eat = new MotivatedAction("feedEat").motive(hunger, -3);
+        world = new World(1, 7);
+        Actor actor = new Actor("eater");
+        actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.addMotive(hunger, 20);
+        actor.addAction(eat);
+        world.addActor(actor);
+    }
+
+    @Test
+    public void framesCopyTheWorld() {
+        world.tick();
+        TickFrame frame = TickFrame.capture(world);
+        world.tick();
+        assertEquals(1, frame.getTick());
+        assertEquals(1, frame.getActorCount());
+        assertEquals("eater", frame.getActorName(0));
+        assertEquals("feedEat", frame.getAction(0));
+        assertEquals(18, frame.getMotive(0, "feedHunger"), EPSILON);
+        assertTrue(Double.isNaN(frame.getMotive(0, "thirst")));
+        assertEquals(Long.valueOf(1), frame.getActionCounts().get("feedEat"));
+    }
+
+    @Test
+    public void framesAreWrittenAsJson() throws Exception {
+        world.tick();
+        StringWriter out = new StringWriter();
+        JsonGenerator json = new JsonFactory().createGenerator(out);
+        TickFrame.capture(world).writeTo(json, 3);
+        json.close();
+
+        JsonNode node = new ObjectMapper().readTree(out.toString());
+        assertEquals(1, node.get("tick").asLong());
+        assertEquals(3, node.get("droppedFrames").asLong());
+        JsonNode actor = node.get("actors").get(0);
+        assertEquals("eater", actor.get("name").asText());
+        assertEquals("feedEat", actor.get("action").asText());
+        assertEquals(18, actor.get("motives").get("feedHunger").asDouble(), EPSILON);
+        assertEquals(1, node.get("actionCounts").get("feedEat").asLong());
+    }
+
+    @Test
+    public void slowSubscribersOnlySeeTheNewestFrame() throws Exception {
+        WorldFeed feed = new WorldFeed(world);
+        WorldFeed.Subscription slow = feed.subscribe();
+        WorldFeed.Subscription fast = feed.subscribe();
+        for (int i = 0; i < 3; i++) {
+            world.tick();
+            feed.publish();
+            assertEquals(i + 1, fast.poll().getTick());
+        }
+        assertEquals(3, slow.take(1, TimeUnit.SECONDS).getTick());
+        assertEquals(2, slow.getDroppedFrames());
+        assertEquals(0, fast.getDroppedFrames());
+        assertNull(slow.poll());
+    }
+
+    @Test
+    public void nothingIsCapturedWithoutSubscribers() {
+        WorldFeed feed = new WorldFeed(world);
+        feed.publish();
+        WorldFeed.Subscription subscription = feed.subscribe();
+        assertNull(subscription.poll());
+        subscription.close();
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    public void listenersHearOfEveryFrameOffered() {
+        WorldFeed feed = new WorldFeed(world);
+        AtomicInteger offered = new AtomicInteger();
+        WorldFeed.Subscription subscription = feed.subscribe(offered::incrementAndGet);
+        world.tick();
+        feed.publish();
+        world.tick();
+        feed.publish();
+        assertEquals(2, offered.get());
+        assertEquals(2, subscription.poll().getTick());
+        subscription.close();
+        feed.publish();
+        assertEquals(2, offered.get());
+    }
+
+    @Test
+    public void closingWakesAWaitingReader() throws Exception {
+        WorldFeed feed = new WorldFeed(world);
+        WorldFeed.Subscription subscription = feed.subscribe();
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscription.close();
+        });
+        closer.start();
+        long start = System.nanoTime();
+        assertNull(subscription.take(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(subscription.isClosed());
+        closer.join();
+    }
+
+    @Test
+    public void simulationPublishesEveryTick() throws Exception {
+        try (Simulation simulation = new Simulation(world)) {
+            WorldFeed.Subscription subscription = simulation.getFeed().subscribe();
+            simulation.start(1, TimeUnit.MILLISECONDS);
+            assertTrue(simulation.isRunning());
+            TickFrame first = subscription.take(10, TimeUnit.SECONDS);
+            TickFrame second = subscription.take(10, TimeUnit.SECONDS);
+            simulation.stop();
+            assertFalse(simulation.isRunning());
+            assertNotNull(first);
+            assertNotNull(second);
+            assertTrue(second.getTick() > first.getTick());
+        }
+    }
+
+    @Test
+    public void aFailedTickDoesNotStopTheSimulation() throws Exception {
+        AtomicInteger updates = new AtomicInteger();
+        world.getActors().get(0).registerMotiveUpdate(hunger, (motive, actor) -> {
+            if (updates.getAndIncrement() == 0) {
+                throw new IllegalStateException("broken update");
+            }
+        });
+        try (Simulation simulation = new Simulation(world)) {
+            WorldFeed.Subscription subscription = simulation.getFeed().subscribe();
+            simulation.start(1, TimeUnit.MILLISECONDS);
+            assertNotNull(subscription.take(10, TimeUnit.SECONDS));
+            assertTrue(simulation.isRunning());
+            assertEquals(1, simulation.getFailedTicks());
+        }
+    }
+}
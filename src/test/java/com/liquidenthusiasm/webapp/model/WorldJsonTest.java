@@ -0,0 +1,203 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class WorldJsonTest {
+    private static final double EPSILON = 0.0000001d;
+    private Motive hunger;
+    private Motive boredom;
+    private MotivatedAction eat;
+    private MotivatedAction feast;
+    private MotivatedAction play;
+    private Item bread;
+    private MotiveUpdate slowBoredom;
+
+    @Before
+    public void setUp() {
+        hunger = new Motive("jsonHunger").min(0).max(100);
+        boredom = new Motive("jsonBoredom").min(0).max(100);
+        eat = new MotivatedAction("eat").motive(hunger, -3);
+        feast = new MotivatedAction("feast").motive(hunger, -40);
+        feast.setCompletionTime(6);
+        play = new MotivatedAction("play").motive(boredom, -7);
+        bread = new Item("bread");
+        bread.setUses(3);
+        bread.addAction(new MotivatedAction("eats bread").motive(hunger, -11));
+        slowBoredom = (motive, actor) -> actor.addMotive(motive, 0.5);
+    }
+
+    private Actor createActor(int i) {
+        Actor actor = new Actor("actor" + i);
+        actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+        actor.registerMotiveUpdate(boredom, slowBoredom);
+        actor.registerDesire(hunger, 0, 0, 10);
+        actor.registerDesire(boredom, 0, 0, 20);
+        actor.setMotiveWeight(boredom, 0.5 + i % 3);
+        actor.setForesight(1 + (i % 4) / 4d);
+        actor.addMotive(hunger, 10 + 7 * i % 90);
+        actor.addMotive(boredom, 3 * i % 60);
+        actor.addAction(eat);
+        actor.addAction(play);
+        if (i % 2 == 0) {
+            actor.addAction(feast);
+        }
+        if (i % 3 == 0) {
+            actor.addItem(bread.copy());
+        }
+        return actor;
+    }
+
+    private SnapshotCatalog catalog() {
+        return new SnapshotCatalog().motive(hunger).motive(boredom).action(eat).action(feast).action(play).item(bread)
+                .motiveUpdate("slow boredom", slowBoredom);
+    }
+
+    private byte[] export(World world) throws IOException {
+        return export(world, catalog());
+    }
+
+    private byte[] export(World world, SnapshotCatalog catalog) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WorldJson.write(world, catalog, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Every actor has two equally good actions, so each choice comes down to its random stream.
+     */
+    @Test
+    public void importedWorldBreaksTiesAsTheOriginalWould() throws IOException {
+        MotivatedAction left = new MotivatedAction("left").motive(hunger, -3);
+        MotivatedAction right = new MotivatedAction("right").motive(hunger, -3);
+        SnapshotCatalog catalog = new SnapshotCatalog().motive(hunger).action(left).action(right);
+        try (World original = new World(1, 42)) {
+            for (int i = 0; i < 100; i++) {
+                Actor actor = new Actor("tied" + i);
+                actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+                actor.registerDesire(hunger, 0, 0, 10);
+                actor.addMotive(hunger, 50);
+                actor.addAction(left);
+                actor.addAction(right);
+                original.addActor(actor);
+            }
+            original.run(5);
+
+            try (World restored = WorldJson.read(new ByteArrayInputStream(export(original, catalog)), catalog, 1)) {
+                assertEquals(original.getStreamCount(), restored.getStreamCount());
+                for (int turn = 0; turn < 10; turn++) {
+                    original.tick();
+                    restored.tick();
+                    for (int i = 0; i < original.getActors().size(); i++) {
+                        assertSame("tied" + i + " on turn " + turn, original.getActors().get(i).getDecidedAction(),
+                                restored.getActors().get(i).getDecidedAction());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void importedWorldCarriesOnExactlyAsTheOriginal() throws IOException {
+        try (World original = new World(1, 42)) {
+            for (int i = 0; i < 50; i++) {
+                original.addActor(createActor(i));
+            }
+            original.getAbilityMap().addRelationship("fire", "water", -2);
+            original.run(8);
+            assertTrue("some actors are part way through a feast", original.getParkedActorCount() > 0);
+
+            try (World imported = WorldJson.read(new ByteArrayInputStream(export(original)), catalog(), 1)) {
+                assertEquals(original.getTick(), imported.getTick());
+                assertEquals(42, imported.getSeed());
+                assertEquals(original.getParkedActorCount(), imported.getParkedActorCount());
+                assertEquals(-2, imported.getAbilityMap().getRelationship("fire", "water"));
+                assertEquals(original.getActors().size(), imported.getActors().size());
+                for (int turn = 0; turn < 10; turn++) {
+                    for (int i = 0; i < original.getActors().size(); i++) {
+                        Actor expected = original.getActors().get(i);
+                        Actor actual = imported.getActors().get(i);
+                        String where = expected.getName() + " on turn " + turn;
+                        assertEquals(where, expected.getName(), actual.getName());
+                        assertEquals(where, expected.getMotive(hunger), actual.getMotive(hunger), EPSILON);
+                        assertEquals(where, expected.getMotive(boredom), actual.getMotive(boredom), EPSILON);
+                        assertEquals(where, expected.getItems().size(), actual.getItems().size());
+                        assertEquals(where, expected.getForesight(), actual.getForesight(), EPSILON);
+                        assertEquals(where, expected.getMotiveWeight(boredom), actual.getMotiveWeight(boredom), EPSILON);
+                    }
+                    original.tick();
+                    imported.tick();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void namesEachDefinitionOnce() throws IOException {
+        try (World world = new World(1)) {
+            for (int i = 0; i < 20; i++) {
+                world.addActor(createActor(i));
+            }
+            String json = new String(export(world), StandardCharsets.UTF_8);
+            assertEquals(json.indexOf("\"jsonHunger\""), json.lastIndexOf("\"jsonHunger\""));
+            assertEquals(json.indexOf("\"feast\""), json.lastIndexOf("\"feast\""));
+            assertEquals(json.indexOf("\"slow boredom\""), json.lastIndexOf("\"slow boredom\""));
+        }
+    }
+
+    @Test
+    public void actorsRoundTripThroughAnObjectMapper() throws IOException {
+        Actor actor = createActor(0);
+        actor.getItems().iterator().next().setUses(2);
+        ObjectMapper mapper = new ObjectMapper().registerModule(new ModelJsonModule(catalog()));
+        String json = mapper.writeValueAsString(actor);
+        Actor restored = mapper.readValue(json, Actor.class);
+
+        assertEquals("actor0", restored.getName());
+        assertEquals(actor.getMotive(hunger), restored.getMotive(hunger), EPSILON);
+        assertEquals(2, restored.getItems().iterator().next().getUses());
+        assertEquals(3, bread.getUses());
+        assertSame(eat, restored.getActions(restored).get(0));
+        assertSame(ConstantMotiveUpdate.increaseByOne, restored.getMotiveUpdates().get(hunger));
+        assertSame(slowBoredom, restored.getMotiveUpdates().get(boredom));
+        assertEquals(20, restored.desireTable().get(boredom.getOrdinal()).getMax());
+    }
+
+    @Test
+    public void abilityMapsAreWrittenAsCompactArrays() throws IOException {
+        AbilityMap map = new AbilityMap();
+        map.addRelationship("fire", "water", 4);
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(map);
+        assertEquals("{\"abilities\":[\"fire\",\"water\"],\"relations\":[0,1,4]}", json);
+        assertEquals(-4, mapper.readValue(json, AbilityMap.class).getRelationship("water", "fire"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesReferencesToUndefinedIds() throws IOException {
+        String json = "{\"version\":1,\"tick\":0,\"seed\":1,\"actors\":[{\"name\":\"a\",\"actions\":[0]}]}";
+        WorldJson.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), catalog(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writingNeedsEveryActionInTheCatalog() throws IOException {
+        try (World world = new World(1)) {
+            world.addActor(createActor(1));
+            WorldJson.write(world, new SnapshotCatalog().motive(hunger).motive(boredom).action(eat).item(bread)
+                    .motiveUpdate("slow boredom", slowBoredom), new ByteArrayOutputStream());
+        }
+    }
+}
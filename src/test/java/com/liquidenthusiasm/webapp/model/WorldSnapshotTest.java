@@ -0,0 +1,215 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveUpdate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WorldSnapshotTest {
+    private static final double EPSILON = 0.0000001d;
+    private File file;
+    private Motive hunger;
+    private Motive boredom;
+    private MotivatedAction eat;
+    private MotivatedAction feast;
+    private MotivatedAction play;
+    private Item bread;
+    private MotiveUpdate slowBoredom;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("world", ".snapshot").toFile();
+        hunger = new Motive("snapshotHunger").min(0).max(100);
+        boredom = new Motive("snapshotBoredom").min(0).max(100);
+        eat = new MotivatedAction("eat").motive(hunger, -3);
+        feast = new MotivatedAction("feast").motive(hunger, -40);
+        feast.setCompletionTime(6);
+        play = new MotivatedAction("play").motive(boredom, -7);
+        bread = new Item("bread");
+        bread.setUses(3);
+        bread.addAction(new MotivatedAction("eats bread").motive(hunger, -11));
+        slowBoredom = (motive, actor) -> actor.addMotive(motive, 0.5);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private Actor createActor(int i) {
+        Actor actor = new Actor("actor" + i);
+        actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+        actor.registerMotiveUpdate(boredom, slowBoredom);
+        actor.registerDesire(hunger, 0, 0, 10);
+        actor.registerDesire(boredom, 0, 0, 20);
+        actor.setMotiveWeight(boredom, 0.5 + i % 3);
+        actor.setForesight(1 + (i % 4) / 4d);
+        actor.addMotive(hunger, 10 + 7 * i % 90);
+        actor.addMotive(boredom, 3 * i % 60);
+        actor.addAction(eat);
+        actor.addAction(play);
+        if (i % 2 == 0) {
+            actor.addAction(feast);
+        }
+        if (i % 3 == 0) {
+            actor.addItem(bread.copy());
+        }
+        return actor;
+    }
+
+    private SnapshotCatalog catalog() {
+        return new SnapshotCatalog().motive(hunger).motive(boredom).action(eat).action(feast).action(play).item(bread)
+                .motiveUpdate("slow boredom", slowBoredom);
+    }
+
+    @Test
+    public void restoredWorldCarriesOnExactlyAsTheOriginal() throws IOException {
+        try (World original = new World(1, 42)) {
+            for (int i = 0; i < 50; i++) {
+                original.addActor(createActor(i));
+            }
+            original.getAbilityMap().addRelationship("fire", "water", -2);
+            original.getAbilityMap().addRelationship("earth", "air", 3);
+            original.run(8);
+            assertTrue("some actors are part way through a feast", original.getParkedActorCount() > 0);
+
+            WorldSnapshot.write(original, catalog(), file);
+            try (World restored = WorldSnapshot.read(file, catalog(), 1)) {
+                assertEquals(original.getTick(), restored.getTick());
+                assertEquals(42, restored.getSeed());
+                assertEquals(original.getParkedActorCount(), restored.getParkedActorCount());
+                assertEquals(-2, restored.getAbilityMap().getRelationship("fire", "water"));
+                assertEquals(original.getAbilityMap().getRelationship("earth", "air"), restored.getAbilityMap().getRelationship("earth", "air"));
+                assertEquals(original.getActors().size(), restored.getActors().size());
+                for (int turn = 0; turn < 10; turn++) {
+                    for (int i = 0; i < original.getActors().size(); i++) {
+                        Actor expected = original.getActors().get(i);
+                        Actor actual = restored.getActors().get(i);
+                        String where = expected.getName() + " on turn " + turn;
+                        assertEquals(where, expected.getName(), actual.getName());
+                        assertEquals(where, expected.getMotive(hunger), actual.getMotive(hunger), EPSILON);
+                        assertEquals(where, expected.getMotive(boredom), actual.getMotive(boredom), EPSILON);
+                        assertEquals(where, expected.getItems().size(), actual.getItems().size());
+                        assertEquals(where, expected.getForesight(), actual.getForesight(), EPSILON);
+                        assertEquals(where, expected.getMotiveWeight(boredom), actual.getMotiveWeight(boredom), EPSILON);
+                    }
+                    original.tick();
+                    restored.tick();
+                }
+            }
+        }
+    }
+
+    /**
+     * Every actor has two equally good actions, so each choice comes down to its random stream.
+     */
+    @Test
+    public void restoredWorldBreaksTiesAsTheOriginalWould() throws IOException {
+        MotivatedAction left = new MotivatedAction("left").motive(hunger, -3);
+        MotivatedAction right = new MotivatedAction("right").motive(hunger, -3);
+        SnapshotCatalog catalog = new SnapshotCatalog().motive(hunger).action(left).action(right);
+        try (World original = new World(1, 42)) {
+            for (int i = 0; i < 100; i++) {
+                Actor actor = new Actor("tied" + i);
+                actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+                actor.registerDesire(hunger, 0, 0, 10);
+                actor.addMotive(hunger, 50);
+                actor.addAction(left);
+                actor.addAction(right);
+                original.addActor(actor);
+            }
+            original.run(5);
+
+            WorldSnapshot.write(original, catalog, file);
+            try (World restored = WorldSnapshot.read(file, catalog, 1)) {
+                assertEquals(original.getStreamCount(), restored.getStreamCount());
+                for (int turn = 0; turn < 10; turn++) {
+                    original.tick();
+                    restored.tick();
+                    for (int i = 0; i < original.getActors().size(); i++) {
+                        assertSame("tied" + i + " on turn " + turn, original.getActors().get(i).getDecidedAction(),
+                                restored.getActors().get(i).getDecidedAction());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void restoresItemUsesAndSharedDefinitions() throws IOException {
+        try (World world = new World(1)) {
+            Actor actor = createActor(0);
+            world.addActor(actor);
+            Item owned = actor.getItems().iterator().next();
+            owned.setUses(2);
+            WorldSnapshot.write(world, catalog(), file);
+
+            Actor restored = WorldSnapshot.read(file, catalog(), 1).getActors().get(0);
+            Item restoredItem = restored.getItems().iterator().next();
+            assertEquals(2, restoredItem.getUses());
+            assertEquals(3, bread.getUses());
+            assertSame(eat, restored.getActions(restored).get(0));
+            assertSame(ConstantMotiveUpdate.increaseByOne, restored.getMotiveUpdates().get(hunger));
+            assertSame(slowBoredom, restored.getMotiveUpdates().get(boredom));
+        }
+    }
+
+    @Test
+    public void restoresWorldsLargerThanOneBlock() throws IOException {
+        int count = 40000;
+        try (World world = new World(1)) {
+            for (int i = 0; i < count; i++) {
+                world.addActor(createActor(i));
+            }
+            WorldSnapshot.write(world, catalog(), file);
+            assertTrue("spans several blocks", file.length() > 2 * WorldSnapshot.BLOCK_SIZE);
+            try (World restored = WorldSnapshot.read(file, catalog(), 1)) {
+                assertEquals(count, restored.getActors().size());
+                for (int i = 0; i < count; i += 997) {
+                    assertEquals("actor" + i, restored.getActors().get(i).getName());
+                    assertEquals(world.getActors().get(i).getMotive(hunger), restored.getActors().get(i).getMotive(hunger), EPSILON);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writingNeedsEveryActionInTheCatalog() throws IOException {
+        try (World world = new World(1)) {
+            world.addActor(createActor(1));
+            WorldSnapshot.write(world, new SnapshotCatalog().motive(hunger).motive(boredom).action(eat).item(bread)
+                    .motiveUpdate("slow boredom", slowBoredom), file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unnamedMotiveUpdatesCanNotBeWritten() throws IOException {
+        try (World world = new World(1)) {
+            world.addActor(createActor(1));
+            WorldSnapshot.write(world, SnapshotCatalog.of(world.getActors()), file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void catalogRejectsTwoDefinitionsWithTheSameName() {
+        new SnapshotCatalog().action(eat).action(new MotivatedAction("eat"));
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesFilesThatAreNotSnapshots() throws IOException {
+        Files.write(file.toPath(), new byte[WorldSnapshot.HEADER_SIZE]);
+        WorldSnapshot.read(file, catalog(), 1);
+    }
+}
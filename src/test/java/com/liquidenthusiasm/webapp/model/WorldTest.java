@@ -0,0 +1,180 @@
+package com.liquidenthusiasm.webapp.model;
+
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.sandbox.BaseSandbox;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorldTest extends BaseSandbox {
+    private Motive hunger;
+    private MotivatedAction eat;
+
+    @Before
+    public void setUp() {
+        hunger = new Motive("worldHunger").min(0).max(100);
+        eat = new MotivatedAction("eat").motive(hunger, -3);
+    }
+
+    private Actor hungryActor(String name, int hungerAmount) {
+        Actor actor = new Actor(name);
+        actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+        actor.registerDesire(hunger, 0, 0, 0);
+        actor.addMotive(hunger, hungerAmount);
+        actor.addAction(eat);
+        return actor;
+    }
+
+    @Test
+    public void parallelTickMatchesManualTurns() {
+        int actorCount = 200;
+        try (World world = new World(4)) {
+            world.setChunkSize(8);
+            Actor[] manual = new Actor[actorCount];
+            for (int i = 0; i < actorCount; i++) {
+                world.addActor(hungryActor("world" + i, i % 50));
+                manual[i] = hungryActor("manual" + i, i % 50);
+            }
+            for (int turn = 0; turn < 10; turn++) {
+                world.tick();
+                for (Actor actor : manual) {
+                    processTurn(actor);
+                }
+            }
+            for (int i = 0; i < actorCount; i++) {
+                assertEquals("actor #" + i, manual[i].getMotive(hunger), world.getActors().get(i).getMotive(hunger), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void parkedActorsFinishLongActionsOnTheSameTickAsManualTurns() {
+        MotivatedAction feast = new MotivatedAction("feast").motive(hunger, -20);
+        feast.setCompletionTime(7);
+        try (World world = new World(1)) {
+            Actor parked = hungryActor("parked", 60);
+            Actor manual = hungryActor("manual", 60);
+            parked.addAction(feast);
+            manual.addAction(feast);
+            world.addActor(parked);
+            for (int turn = 0; turn < 40; turn++) {
+                world.tick();
+                processTurn(manual);
+                assertEquals("turn " + turn, manual.getMotive(hunger), parked.getMotive(hunger), EPSILON);
+                assertEquals("turn " + turn, manual.getRemainingActionTicks() > 1 ? 1 : 0, world.getParkedActorCount());
+            }
+        }
+    }
+
+    @Test
+    public void removingAnItemWakesParkedActor() {
+        Item food = new Item("slow food");
+        food.setUses(5);
+        MotivatedAction slowEat = new MotivatedAction("eat slowly").motive(hunger, -10);
+        slowEat.setCompletionTime(10);
+        food.addAction(slowEat);
+        try (World world = new World(1)) {
+            Actor actor = new Actor("sleepy");
+            actor.registerDesire(hunger, 0, 0, 0);
+            actor.addMotive(hunger, 50);
+            actor.addItem(food);
+            world.addActor(actor);
+            world.tick();
+            assertEquals(1, world.getParkedActorCount());
+            actor.removeItem(food);
+            assertEquals(0, world.getParkedActorCount());
+            world.tick();
+            assertEquals("interrupted action leaves actor idle", 0, actor.getRemainingActionTicks());
+            assertEquals(50, actor.getMotive(hunger), EPSILON);
+        }
+    }
+
+    @Test
+    public void eachWorldCountsItsOwnActions() {
+        try (World first = new World(1); World second = new World(1)) {
+            Actor actor = hungryActor("logged", 50);
+            first.addActor(actor);
+            first.tick();
+            assertFalse("worlds don't print their actions", first.getActionLogger().actionDebuggingOn);
+            assertEquals(1, first.getActionLogger().actorActionCount(actor, "eat"));
+            assertEquals(0, ActionLogger.logger.actorActionCount(actor, "eat"));
+
+            first.removeActor(actor);
+            second.addActor(actor);
+            second.tick();
+            assertEquals(1, first.getActionLogger().actorActionCount(actor, "eat"));
+            assertEquals(1, second.getActionLogger().actorActionCount(actor, "eat"));
+        }
+    }
+
+    /**
+     * Runs a world of actors torn between two equally good actions, so every choice comes down to a random tie-break,
+     * and returns how often each actor chose the first.
+     */
+    private int[] tieBreaks(World world, boolean seedLast) {
+        MotivatedAction nibble = new MotivatedAction("nibble").motive(hunger, -3);
+        world.setChunkSize(8);
+        for (int i = 0; i < 200; i++) {
+            Actor actor = hungryActor("tie" + i, 50);
+            actor.addAction(nibble);
+            world.addActor(actor);
+        }
+        if (seedLast) {
+            world.setSeed(1234);
+        }
+        world.run(20);
+        int[] counts = new int[200];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = (int) world.getActionLogger().actorActionCount(world.getActors().get(i), "eat");
+        }
+        return counts;
+    }
+
+    @Test
+    public void sameSeedMakesSameChoicesOnAnyNumberOfThreads() {
+        try (World single = new World(1, 1234); World parallel = new World(4, 1234); World reseeded = new World(4)) {
+            int[] expected = tieBreaks(single, false);
+            assertArrayEquals(expected, tieBreaks(parallel, false));
+            assertArrayEquals("seeding after adding actors", expected, tieBreaks(reseeded, true));
+        }
+    }
+
+    @Test
+    public void differentSeedsMakeDifferentChoices() {
+        try (World first = new World(1, 1); World second = new World(1, 2)) {
+            assertFalse(Arrays.equals(tieBreaks(first, false), tieBreaks(second, false)));
+        }
+    }
+
+    @Test
+    public void countsTicks() {
+        try (World world = new World(1)) {
+            world.addActor(hungryActor("solo", 10));
+            world.run(5);
+            assertEquals(5, world.getTick());
+            assertTrue("ticks per second", world.getTicksPerSecond() > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelismMustBePositive() {
+        new World(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePositive() {
+        try (World world = new World(1)) {
+            world.setChunkSize(0);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class ActionLoggerTest {
     Actor a1 = new Actor("a1");
@@ -33,12 +34,12 @@ public class ActionLoggerTest {
         ActionLogger.logger.log(a2, sleep);
         ActionLogger.logger.log(a2, sleep);
 
-        assertEquals("total eats", 7, (long) ActionLogger.logger.actions.get(eat.getName()));
-        assertEquals("total sleeps", 5, (long) ActionLogger.logger.actions.get(sleep.getName()));
-        assertEquals("a1 eats", 4, (long) ActionLogger.logger.actorActions.get(a1.getName()).get(eat.getName()));
-        assertEquals("a1 sleep", 2, (long) ActionLogger.logger.actorActions.get(a1.getName()).get(sleep.getName()));
-        assertEquals("a2 eats", 3, (long) ActionLogger.logger.actorActions.get(a2.getName()).get(eat.getName()));
-        assertEquals("a2 sleep", 3, (long) ActionLogger.logger.actorActions.get(a2.getName()).get(sleep.getName()));
+        assertEquals("total eats", 7, ActionLogger.logger.actionCount(eat.getName()));
+        assertEquals("total sleeps", 5, ActionLogger.logger.actionCount(sleep.getName()));
+        assertEquals("a1 eats", 4, ActionLogger.logger.actorActionCount(a1, eat.getName()));
+        assertEquals("a1 sleep", 2, ActionLogger.logger.actorActionCount(a1, sleep.getName()));
+        assertEquals("a2 eats", 3, ActionLogger.logger.actorActionCount(a2, eat.getName()));
+        assertEquals("a2 sleep", 3, ActionLogger.logger.actorActionCount(a2, sleep.getName()));
 
         System.out.println(ActionLogger.logger.actionReport());
         System.out.println(ActionLogger.logger.actorReport());
@@ -65,4 +66,56 @@ public class ActionLoggerTest {
         assertEquals("burp", 0, (long) ActionLogger.logger.actorActionCount(a1, "burp"));
         assertEquals("burp", 0, (long) ActionLogger.logger.actorActionCount(a2, "burp"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countsConcurrentLogsExactly() throws InterruptedException {
+        ActionLogger logger = new ActionLogger();
+        logger.actionDebuggingOn = false;
+        int threadCount = 8;
+        int logsPerThread = 10000;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            Actor actor = new Actor("thread" + (t % 2));
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < logsPerThread; i++) {
+                    logger.log(actor, i % 4 == 0 ? sleep : eat);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("total eats", threadCount * logsPerThread * 3 / 4, logger.actionCount("eat"));
+        assertEquals("total sleeps", threadCount * logsPerThread / 4, logger.actionCount("sleep"));
+        assertEquals("thread0 eats", threadCount / 2 * logsPerThread * 3 / 4, logger.actorActionCount(new Actor("thread0"), "eat"));
+        assertEquals("thread1 sleeps", threadCount / 2 * logsPerThread / 4, (long) logger.actionsBy(new Actor("thread1")).get("sleep"));
+    }
+
+    @Test
+    public void actionsAreCountedInTheActorsOwnLogger() {
+        ActionLogger simulationLogger = new ActionLogger();
+        simulationLogger.actionDebuggingOn = false;
+        a1.setActionLogger(simulationLogger);
+        assertSame(simulationLogger, ActionLogger.forActor(a1));
+        assertSame(ActionLogger.logger, ActionLogger.forActor(a2));
+        assertSame(ActionLogger.logger, ActionLogger.forActor(null));
+
+        eat.perform(a1, a1);
+        eat.perform(a2, a2);
+        assertEquals(1, simulationLogger.actorActionCount(a1, "eat"));
+        assertEquals(0, simulationLogger.actorActionCount(a2, "eat"));
+        assertEquals(0, ActionLogger.logger.actorActionCount(a1, "eat"));
+        assertEquals(1, ActionLogger.logger.actorActionCount(a2, "eat"));
+    }
+
+    @Test
+    public void countsActorsWithoutANameTogether() {
+        ActionLogger logger = new ActionLogger(false);
+        Actor unnamed = new Actor(null);
+        logger.log(unnamed, eat);
+        logger.log(new Actor(null), eat);
+        assertEquals(2, logger.actorActionCount(unnamed, "eat"));
+        assertEquals(2, (long) logger.actionsBy(unnamed).get("eat"));
+    }
+}
@@ -2,6 +2,7 @@ package com.liquidenthusiasm.webapp.model.action;
 
 import com.liquidenthusiasm.webapp.model.Actor;
 import com.liquidenthusiasm.webapp.model.motive.Motive;
+import com.liquidenthusiasm.webapp.model.motive.MotiveVector;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -30,6 +31,26 @@ public class MotivatedActionTest {
         assertEquals("motive change amt", motiveChange, action.getExpectedMotiveFulfillment(actor).get(motive), EPSILON);
     }
 
+    @Test
+    public void compiledMotivesAreReusedUntilChanged() {
+        action.motive(motive, motiveChange);
+        MotiveVector compiled = action.getExpectedMotiveVector(actor);
+        assertSame("compiled once", compiled, action.getExpectedMotiveVector(actor));
+        assertEquals(motive.getOrdinal(), compiled.ordinal(0));
+        assertEquals(motiveChange, compiled.delta(0), EPSILON);
+
+        action.motive(motive, motiveChange + 1);
+        MotiveVector recompiled = action.getExpectedMotiveVector(actor);
+        assertNotSame("recompiled after change", compiled, recompiled);
+        assertEquals(motiveChange + 1, recompiled.delta(0), EPSILON);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void motiveChangesCanOnlyBeChangedThroughTheAction() {
+        action.motive(motive, motiveChange);
+        action.getActualMotiveFulfillment(actor).put(motive, motiveChange + 1);
+    }
+
     @Test
     public void canTestForValidityRejection() {
         action.setValidityCheck((actor) -> false);
@@ -0,0 +1,138 @@
+package com.liquidenthusiasm.webapp.model.item;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InventoryTest {
+    private Inventory inventory;
+
+    @Before
+    public void setUp() {
+        inventory = new Inventory();
+    }
+
+    private Item item(String name, int uses) {
+        Item item = new Item(name);
+        item.setUses(uses);
+        return item;
+    }
+
+    @Test
+    public void mergesStacksWithTheSameName() {
+        Item first = item("arrow", 5);
+        assertTrue(inventory.add(first));
+        assertFalse(inventory.add(item("arrow", 7)));
+        assertEquals(1, inventory.size());
+        assertSame(first, inventory.get("arrow"));
+        assertEquals(12, inventory.count("arrow"));
+    }
+
+    @Test
+    public void infiniteStacksStayInfinite() {
+        inventory.add(item("well", 3));
+        inventory.add(item("well", Item.INFINITE_USES));
+        inventory.add(item("well", 3));
+        assertEquals(Item.INFINITE_USES, inventory.count("well"));
+    }
+
+    @Test
+    public void addingTheHeldStackAgainChangesNothing() {
+        Item rope = item("rope", 2);
+        inventory.add(rope);
+        inventory.add(rope);
+        assertEquals(2, inventory.count("rope"));
+    }
+
+    @Test
+    public void looksItemsUpByName() {
+        inventory.add(item("apple", 1));
+        assertTrue(inventory.contains(item("apple", 9)));
+        assertFalse(inventory.contains(item("pear", 1)));
+        assertFalse(inventory.contains("apple"));
+        assertNull(inventory.get("pear"));
+        assertEquals(0, inventory.count("pear"));
+    }
+
+    @Test
+    public void removesWholeStacks() {
+        inventory.add(item("coin", 10));
+        inventory.add(item("gem", 1));
+        assertTrue(inventory.remove(item("coin", 1)));
+        assertFalse(inventory.remove(item("coin", 1)));
+        assertEquals(1, inventory.size());
+        assertNotNull(inventory.remove("gem"));
+        assertTrue(inventory.isEmpty());
+    }
+
+    @Test
+    public void iteratesInTheOrderStacksWereStarted() {
+        inventory.add(item("c", 1));
+        inventory.add(item("a", 1));
+        inventory.add(item("b", 1));
+        inventory.add(item("a", 1));
+        List<String> names = new ArrayList<>();
+        for (Item item : inventory) {
+            names.add(item.getName());
+        }
+        assertEquals(Arrays.asList("c", "a", "b"), names);
+
+        Iterator<Item> iterator = inventory.iterator();
+        iterator.next();
+        iterator.remove();
+        assertFalse(inventory.contains(item("c", 1)));
+    }
+
+    @Test
+    public void actorsAddAndRemoveItemsInBulk() {
+        Actor actor = new Actor("hoarder");
+        List<Item> loot = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            loot.add(item("trinket" + (i % 100), 1));
+        }
+        actor.addItems(loot);
+        assertEquals(100, actor.getItems().size());
+        assertEquals(10, actor.getInventory().count("trinket7"));
+
+        actor.removeItems(loot.subList(0, 50));
+        assertEquals(50, actor.getItems().size());
+        assertNull(actor.getInventory().get("trinket7"));
+        assertEquals(10, actor.getInventory().count("trinket77"));
+    }
+
+    @Test
+    public void readOnlyViewsFollowChangesButCantMakeThem() {
+        Inventory view = inventory.readOnlyView();
+        inventory.add(item("arrow", 5));
+        assertEquals(5, view.count("arrow"));
+        assertTrue(view.contains(item("arrow", 1)));
+        for (Runnable change : Arrays.<Runnable>asList(() -> view.add(item("bolt", 1)), () -> view.remove("arrow"),
+                () -> view.remove(item("arrow", 1)), view::clear, () -> {
+                    Iterator<Item> it = view.iterator();
+                    it.next();
+                    it.remove();
+                })) {
+            try {
+                change.run();
+                fail("a read-only view was changed");
+            } catch (UnsupportedOperationException expected) {
+                // the view is unchanged
+            }
+        }
+        assertEquals(1, inventory.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void actorsOnlyShareReadOnlyInventories() {
+        Actor actor = new Actor("owner");
+        actor.addItem(item("arrow", 5));
+        actor.getInventory().remove("arrow");
+    }
+}
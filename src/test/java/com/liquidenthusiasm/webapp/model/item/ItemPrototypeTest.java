@@ -0,0 +1,39 @@
+package com.liquidenthusiasm.webapp.model.item;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ItemPrototypeTest {
+
+    @Test
+    public void copiesShareTheirPrototype() {
+        Item corn = new Item("corn");
+        corn.setUses(3);
+        Item copy = corn.copy();
+        assertNotSame(corn, copy);
+        assertSame(corn.getPrototype(), copy.getPrototype());
+        copy.addAction(new MotivatedAction("eats"));
+        assertNotNull("actions added to a copy are shared", corn.getAction("eats"));
+        assertSame(corn.getCandidateActions(null), copy.getCandidateActions(null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void actionsCanOnlyBeAddedThroughThePrototype() {
+        new ItemPrototype("sealed").getActions().add(new MotivatedAction("sneaky"));
+    }
+
+    @Test
+    public void actorsMergeUsesOfAPrototypeIntoTheHeldStack() {
+        Actor actor = new Actor("gatherer");
+        ItemPrototype grass = new ItemPrototype("grass");
+        actor.addItem(grass, 2);
+        Item held = actor.getInventory().get("grass");
+        actor.addItem(grass, 5);
+        assertSame(held, actor.getInventory().get("grass"));
+        assertEquals(7, held.getUses());
+        assertEquals(1, actor.getItems().size());
+    }
+}
@@ -44,6 +44,27 @@ public class ItemTest {
         assertEquals(2, item.getActions(actor).size());
     }
 
+    @Test
+    public void candidateActionsIncludeInvalidActionsAndAreReused() {
+        Action light = new MotivatedAction("light");
+        Action drink = new MotivatedAction("drink", (actor) -> false);
+        item.addAction(light);
+        item.addAction(drink);
+        Action[] candidates = item.getCandidateActions(actor);
+        assertArrayEquals(new Action[]{light, drink}, candidates);
+        assertSame(candidates, item.getCandidateActions(actor));
+    }
+
+    @Test
+    public void candidateActionsFollowActionsAddedThroughACopy() {
+        item.setUses(3);
+        Item copy = item.copy();
+        assertEquals(0, item.getCandidateActions(actor).length);
+        Action light = new MotivatedAction("light");
+        copy.addAction(light);
+        assertArrayEquals(new Action[]{light}, item.getCandidateActions(actor));
+    }
+
     @Test
     public void itemCanBeUsedUp() {
         item.setUses(1);
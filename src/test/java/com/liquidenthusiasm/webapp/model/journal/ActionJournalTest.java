@@ -0,0 +1,198 @@
+package com.liquidenthusiasm.webapp.model.journal;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.World;
+import com.liquidenthusiasm.webapp.model.action.ActionLogger;
+import com.liquidenthusiasm.webapp.model.action.ItemProvidingAction;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.item.Item;
+import com.liquidenthusiasm.webapp.model.motive.ConstantMotiveUpdate;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ActionJournalTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void readsBackRecordsAcrossSegments() throws IOException {
+        try (ActionJournal journal = new ActionJournal(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                journal.record(i, "actor" + (i % 3), "action", i % 2 == 0 ? null : "provider", null, 0);
+            }
+            journal.record(10, "actor0", "fetch", null, "apple", 1);
+            assertEquals(11, journal.size());
+        }
+        assertTrue("rolled over to a third segment", JournalFormat.segmentFile(directory, 2).exists());
+
+        ActionJournalReader reader = new ActionJournalReader(directory);
+        List<String> read = new ArrayList<>();
+        long count = reader.read((tick, actor, action, provider, item, delta) ->
+                read.add(tick + " " + reader.name(actor) + " " + reader.name(action) + " " + reader.name(provider)
+                        + " " + reader.name(item) + " " + delta));
+        assertEquals(11, count);
+        assertEquals("0 actor0 action null null 0", read.get(0));
+        assertEquals("5 actor2 action provider null 0", read.get(5));
+        assertEquals("10 actor0 fetch null apple 1", read.get(10));
+    }
+
+    @Test
+    public void replayRebuildsTheLoggersCounts() throws IOException {
+        Motive hunger = new Motive("journalHunger").min(0).max(100);
+        Item apple = new Item("journal apple");
+        apple.addAction(new MotivatedAction("eat apple").motive(hunger, -10));
+        ItemProvidingAction pick = new ItemProvidingAction("pick apple").providesItem(apple);
+        try (World world = new World(2); ActionJournal journal = new ActionJournal(directory, 16)) {
+            world.setChunkSize(4);
+            world.getActionLogger().setJournal(journal);
+            for (int i = 0; i < 20; i++) {
+                Actor actor = new Actor("journal actor " + i);
+                actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+                actor.registerDesire(hunger, 0, 0, 0);
+                actor.addMotive(hunger, 30);
+                actor.addAction(pick);
+                world.addActor(actor);
+            }
+            world.run(25);
+        }
+
+        ActionLogger replayed = new ActionLogger();
+        ActionJournalReader reader = new ActionJournalReader(directory);
+        long count = reader.replayInto(replayed);
+        assertTrue("journaled some actions", count > 0);
+        assertEquals(count, replayed.actionCount("pick apple") + replayed.actionCount("eat apple"));
+
+        long[] picked = new long[1];
+        long[] lastTick = new long[1];
+        reader.read((tick, actor, action, provider, item, delta) -> {
+            if ("pick apple".equals(reader.name(action))) {
+                assertEquals("journal apple", reader.name(item));
+                assertEquals(ActionJournal.INFINITE_USES, delta);
+                picked[0]++;
+            }
+            lastTick[0] = Math.max(lastTick[0], tick);
+        });
+        assertEquals(replayed.actionCount("pick apple"), picked[0]);
+        assertTrue("ticks recorded", lastTick[0] > 0 && lastTick[0] < 25);
+    }
+
+    @Test
+    public void itemDeltasRebuildWhatEachActorHolds() throws IOException {
+        Motive hunger = new Motive("journalHunger").min(0).max(100);
+        Item bread = new Item("journal bread");
+        bread.setUses(2);
+        bread.addAction(new MotivatedAction("eat bread").motive(hunger, -10));
+        ItemProvidingAction bake = new ItemProvidingAction("bake bread").providesItem(bread);
+        List<Actor> actors = new ArrayList<>();
+        try (World world = new World(1); ActionJournal journal = new ActionJournal(directory, 64)) {
+            world.getActionLogger().setJournal(journal);
+            for (int i = 0; i < 5; i++) {
+                Actor actor = new Actor("baker " + i);
+                actor.registerMotiveUpdate(hunger, ConstantMotiveUpdate.increaseByOne);
+                actor.registerDesire(hunger, 0, 0, 0);
+                actor.addMotive(hunger, 40 + i * 7);
+                actor.addAction(bake);
+                actors.add(actor);
+                world.addActor(actor);
+            }
+            world.run(31);
+        }
+
+        ActionJournalReader reader = new ActionJournalReader(directory);
+        Map<String, Integer> held = new HashMap<>();
+        long[] spent = new long[1];
+        reader.read((tick, actor, action, provider, item, delta) -> {
+            if ("journal bread".equals(reader.name(item))) {
+                held.merge(reader.name(actor), delta, Integer::sum);
+            }
+            if (action == JournalFormat.NONE) {
+                assertEquals(-1, delta);
+                spent[0]++;
+            }
+        });
+        ActionLogger replayed = new ActionLogger();
+        reader.replayInto(replayed);
+        assertEquals(spent[0], replayed.actionCount("eat bread"));
+        assertTrue("bread was eaten", spent[0] > 0);
+        for (Actor actor : actors) {
+            assertEquals(actor.getName(), actor.getInventory().count("journal bread"),
+                    (int) held.getOrDefault(actor.getName(), 0));
+        }
+    }
+
+    @Test
+    public void concurrentRecordsAreAllKept() throws Exception {
+        int threadCount = 4;
+        int recordsPerThread = 5000;
+        try (ActionJournal journal = new ActionJournal(directory, 1000)) {
+            Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                String actor = "thread" + t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        journal.record(i, actor, "work", null, null, 0);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        ActionLogger replayed = new ActionLogger();
+        assertEquals(threadCount * recordsPerThread, new ActionJournalReader(directory).replayInto(replayed));
+        assertEquals(recordsPerThread, replayed.actorActionCount(new Actor("thread3"), "work"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void willNotOverwriteAnExistingJournal() throws IOException {
+        new ActionJournal(directory).close();
+        new ActionJournal(directory);
+    }
+
+    @Test
+    public void canNotRecordOnceClosed() throws IOException {
+        ActionJournal journal = new ActionJournal(directory, 16);
+        journal.record(0, "actor", "action", null, null, 0);
+        journal.close();
+        try {
+            journal.record(1, "actor", "action", null, null, 0);
+            fail("recorded into a closed journal");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, new ActionJournalReader(directory).read((tick, actor, action, provider, item, delta) -> {
+        }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentsMustFitInOneMappedBuffer() throws IOException {
+        new ActionJournal(directory, ActionJournal.MAX_RECORDS_PER_SEGMENT + 1);
+    }
+}
@@ -0,0 +1,28 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MotiveRegistryTest {
+    @Test
+    public void everyMotiveGetsItsOwnOrdinal() {
+        Motive m1 = new Motive("m1");
+        Motive m2 = new Motive("m2");
+        assertNotEquals("ordinals", m1.getOrdinal(), m2.getOrdinal());
+        assertTrue("registry covers new motives", MotiveRegistry.size() > m2.getOrdinal());
+    }
+
+    @Test
+    public void ordinalsResolveBackToTheirMotive() {
+        Motive m = new Motive("lookup");
+        assertSame(m, MotiveRegistry.get(m.getOrdinal()));
+        assertSame(Motive.hunger, MotiveRegistry.get(Motive.hunger.getOrdinal()));
+    }
+
+    @Test
+    public void unknownOrdinalsResolveToNull() {
+        assertNull(MotiveRegistry.get(-1));
+        assertNull(MotiveRegistry.get(Integer.MAX_VALUE));
+    }
+}
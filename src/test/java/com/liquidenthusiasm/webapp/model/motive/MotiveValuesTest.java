@@ -0,0 +1,75 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MotiveValuesTest {
+    private static final double EPSILON = 0.000001d;
+    private MotiveValues values;
+    private Motive hunger;
+    private Motive boredom;
+
+    @Before
+    public void setUp() {
+        values = new MotiveValues();
+        hunger = new Motive("hunger");
+        boredom = new Motive("boredom");
+    }
+
+    @Test
+    public void absentValuesUseDefault() {
+        assertFalse(values.contains(hunger.getOrdinal()));
+        assertEquals(7, values.get(hunger.getOrdinal(), 7), EPSILON);
+        assertEquals(0, values.size());
+    }
+
+    @Test
+    public void canStoreAndRemoveValues() {
+        values.put(hunger.getOrdinal(), 3);
+        values.put(hunger.getOrdinal(), 4);
+        assertEquals(1, values.size());
+        assertEquals(4, values.get(hunger.getOrdinal(), 0), EPSILON);
+        assertTrue(values.remove(hunger.getOrdinal()));
+        assertFalse(values.remove(hunger.getOrdinal()));
+        assertEquals(0, values.size());
+    }
+
+    @Test
+    public void mapViewReflectsValues() {
+        Map<Motive, Double> view = values.asMap();
+        values.put(hunger.getOrdinal(), 1);
+        values.put(boredom.getOrdinal(), 2);
+        assertEquals(2, view.size());
+        assertEquals(1, view.get(hunger), EPSILON);
+        assertEquals(2, view.get(boredom), EPSILON);
+        assertNull(view.get(new Motive("other")));
+        int seen = 0;
+        for (Map.Entry<Motive, Double> entry : view.entrySet()) {
+            assertEquals(entry.getKey().getName(), values.get(entry.getKey().getOrdinal(), 0), entry.getValue(), EPSILON);
+            seen++;
+        }
+        assertEquals(2, seen);
+    }
+
+    @Test
+    public void growsOnlyAsFarAsTheMotivesStored() {
+        for (int i = 0; i < 100; i++) {
+            new Motive("unheldMotive" + i);
+        }
+        values.put(hunger.getOrdinal(), 1);
+        assertEquals(hunger.getOrdinal() + 1, values.capacity());
+        MotiveTable<String> table = new MotiveTable<>();
+        table.put(boredom.getOrdinal(), "bored");
+        assertEquals(boredom.getOrdinal() + 1, table.capacity());
+        assertTrue(table.capacity() < MotiveRegistry.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canNotStoreNaN() {
+        values.put(hunger.getOrdinal(), Double.NaN);
+    }
+}
@@ -0,0 +1,45 @@
+package com.liquidenthusiasm.webapp.model.motive;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MotiveVectorTest {
+    private static final double EPSILON = 0.000001d;
+
+    @Test
+    public void emptyMapsCompileToEmptyVector() {
+        assertSame(MotiveVector.EMPTY, MotiveVector.of(new HashMap<Motive, Double>()));
+        assertSame(MotiveVector.EMPTY, MotiveVector.of(null));
+    }
+
+    @Test
+    public void compiledVectorIsSortedByOrdinal() {
+        Motive first = new Motive("first");
+        Motive second = new Motive("second");
+        Map<Motive, Double> changes = new HashMap<>();
+        changes.put(second, -2d);
+        changes.put(first, 1d);
+        MotiveVector vector = MotiveVector.of(changes);
+        assertEquals(2, vector.size());
+        assertEquals(first.getOrdinal(), vector.ordinal(0));
+        assertEquals(1, vector.delta(0), EPSILON);
+        assertEquals(second.getOrdinal(), vector.ordinal(1));
+        assertEquals(-2, vector.delta(1), EPSILON);
+    }
+
+    @Test
+    public void scalingLeavesOriginalAlone() {
+        Motive m = new Motive("scaled");
+        Map<Motive, Double> changes = new HashMap<>();
+        changes.put(m, 4d);
+        MotiveVector vector = MotiveVector.of(changes);
+        MotiveVector half = vector.scale(0.5);
+        assertEquals(2, half.delta(0), EPSILON);
+        assertEquals(4, vector.delta(0), EPSILON);
+        assertEquals(m.getOrdinal(), half.ordinal(0));
+    }
+}
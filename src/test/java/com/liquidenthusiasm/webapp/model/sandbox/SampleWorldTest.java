@@ -0,0 +1,36 @@
+package com.liquidenthusiasm.webapp.model.sandbox;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.World;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SampleWorldTest {
+
+    @Test
+    public void villagersKeepThemselvesFedRestedAndAmused() {
+        try (World world = SampleWorld.create(20, 42)) {
+            assertEquals(20, world.getActors().size());
+            world.run(200);
+            for (String action : new String[]{"gather grass", "eat grass", "buy a hoe", "farm corn", "eat corn", "sleep", "chat"}) {
+                assertTrue(action, world.getActionLogger().actionCount(action) > 0);
+            }
+            for (Actor villager : world.getActors()) {
+                for (Motive motive : new Motive[]{SampleWorld.HUNGER, SampleWorld.FATIGUE, SampleWorld.BOREDOM}) {
+                    assertTrue(villager.getName() + " " + motive, villager.getMotive(motive) < 50);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void theSeedDecidesHowVillagersStartOut() {
+        try (World first = SampleWorld.create(5, 7); World second = SampleWorld.create(5, 7)) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(first.getActors().get(i).getMotives(), second.getActors().get(i).getMotives());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.liquidenthusiasm.webapp.model.trace;
+
+import com.liquidenthusiasm.webapp.model.Actor;
+import com.liquidenthusiasm.webapp.model.action.MotivatedAction;
+import com.liquidenthusiasm.webapp.model.motive.Motive;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SamplingDecisionTracerTest {
+    private static final double EPSILON = 0.000001d;
+    private List<DecisionTraceRecord> records;
+    private Motive hunger;
+    private Actor actor;
+
+    @Before
+    public void setUp() {
+        records = new ArrayList<>();
+        hunger = new Motive("traceHunger");
+        actor = new Actor("tracy");
+        actor.registerDesire(hunger, -100, 0, 100);
+        actor.addMotive(hunger, 10);
+        actor.addAction(new MotivatedAction("eat").motive(hunger, -2));
+    }
+
+    @Test
+    public void untracedActorsProduceNoRecords() {
+        actor.considerNextAction();
+        assertNull(actor.getDecisionTracer());
+        assertEquals(0, records.size());
+    }
+
+    @Test
+    public void tracedActorsProduceStructuredRecords() {
+        actor.setDecisionTracer(new SamplingDecisionTracer(records::add));
+        actor.considerNextAction();
+        assertEquals(1, records.size());
+        DecisionTraceRecord record = records.get(0);
+        assertEquals("tracy", record.getActorName());
+        assertEquals("eat", record.getActionName());
+        assertEquals("traceHunger", record.getMotiveName());
+        assertEquals(10, record.getCurrentValue(), EPSILON);
+        assertEquals(-2, record.getChange(), EPSILON);
+        assertEquals(1, record.getTimeFactor(), EPSILON);
+        assertEquals(2, record.getUtility(), EPSILON);
+    }
+
+    @Test
+    public void samplingTracesASubsetOfActors() {
+        SamplingDecisionTracer tracer = new SamplingDecisionTracer(10, records::add);
+        int traced = 0;
+        for (int i = 0; i < 1000; i++) {
+            Actor a = new Actor("actor" + i);
+            a.setDecisionTracer(tracer);
+            if (a.getDecisionTracer() != null) {
+                traced++;
+                assertTrue("sampling is stable per actor", tracer.traces(a));
+            }
+        }
+        assertTrue("traced " + traced + " of 1000 actors", traced > 50 && traced < 150);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sampleRateMustBePositive() {
+        new SamplingDecisionTracer(0, records::add);
+    }
+}
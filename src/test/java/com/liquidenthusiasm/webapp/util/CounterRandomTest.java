@@ -0,0 +1,44 @@
+package com.liquidenthusiasm.webapp.util;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CounterRandomTest {
+
+    @Test
+    public void drawsWhatASplittableRandomWithTheSameSeedWould() {
+        CounterRandom random = new CounterRandom(42);
+        SplittableRandom expected = new SplittableRandom(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextDouble(), random.nextDouble(), 0);
+        }
+        assertEquals(100, random.getDraws());
+    }
+
+    @Test
+    public void carriesOnFromASavedDrawCount() {
+        CounterRandom original = CounterRandom.stream(7, 3);
+        for (int i = 0; i < 5; i++) {
+            original.nextLong();
+        }
+        CounterRandom resumed = new CounterRandom(original.getKey(), original.getDraws());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(original.nextLong(), resumed.nextLong());
+        }
+    }
+
+    @Test
+    public void streamsOffOneSeedDiffer() {
+        assertNotEquals(CounterRandom.stream(7, 0).nextLong(), CounterRandom.stream(7, 1).nextLong());
+        assertEquals(CounterRandom.stream(7, 1).nextLong(), CounterRandom.stream(7, 1).nextLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeDrawCountsAreRejected() {
+        new CounterRandom(1, -1);
+    }
+}
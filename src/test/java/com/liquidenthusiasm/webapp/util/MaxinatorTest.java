@@ -0,0 +1,68 @@
+package com.liquidenthusiasm.webapp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MaxinatorTest {
+
+    @Test
+    public void findsTheBestOfNegativeScores() {
+        assertEquals("b", Maxinator.getBest((s) -> -s.length(), Stream.of("ccc", "b", "dd")));
+        assertEquals(1, Maxinator.getBest(new double[]{-3, -1, -2}, (v) -> v));
+    }
+
+    @Test
+    public void emptyPopulationsHaveNoBest() {
+        assertNull(Maxinator.getBest((s) -> 1, Stream.<String>empty()));
+        assertEquals(Maxinator.NOT_FOUND, Maxinator.getBest(new int[0], (v) -> v));
+        assertEquals(Maxinator.NOT_FOUND, Maxinator.getBest(new double[]{Double.NaN}, (v) -> v));
+    }
+
+    @Test
+    public void earliestElementWinsTies() {
+        assertEquals("first", Maxinator.getBest((s) -> 0, Stream.of("first", "second", "third")));
+        assertEquals(2, Maxinator.getBest(new int[]{1, 3, 5, 5, 5}, (v) -> v));
+        assertEquals(0, Maxinator.getBest(new long[]{7, 8}, (v) -> Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void largePopulationsMatchASequentialScan() {
+        Random random = new Random(11);
+        int size = Maxinator.PARALLEL_THRESHOLD * 5;
+        long[] values = new long[size];
+        List<Long> boxed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(1000);
+            boxed.add(values[i]);
+        }
+        int expected = 0;
+        for (int i = 1; i < size; i++) {
+            if (values[i] > values[expected]) {
+                expected = i;
+            }
+        }
+        assertEquals(expected, Maxinator.getBest(values, (v) -> v));
+        assertEquals(Long.valueOf(999), Maxinator.getBest((v) -> v, boxed.stream()));
+        assertEquals(expected, Maxinator.getBest(0, size, (i) -> values[i]));
+        assertSame("earliest of the tied boxed values", boxed.get(expected),
+                Maxinator.getBest((v) -> v, boxed.parallelStream()));
+    }
+
+    @Test
+    public void searchesOnlyTheGivenRange() {
+        int[] values = {9, 1, 2, 3, 9};
+        assertEquals(3, Maxinator.getBest(1, 4, (i) -> values[i]));
+        assertEquals(Maxinator.NOT_FOUND, Maxinator.getBest(2, 2, (i) -> values[i]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeMustBeOrdered() {
+        Maxinator.getBest(3, 2, (i) -> i);
+    }
+}
@@ -0,0 +1,42 @@
+package com.liquidenthusiasm.webapp.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PowerCurveTest {
+
+    private static void assertSameBits(double expected, double actual) {
+        assertEquals(expected + " vs " + actual, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+
+    @Test
+    public void matchesMathPowBitForBit() {
+        double[] exponents = {1.5, 1, 0, 0.5, 2, 1.25, 3, -1};
+        double[] inputs = {0, -0.0, 0.5, 1, 2, 3.75, 63, 64, 100, 1023, 1024, 5000, -1, -2.5, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double exponent : exponents) {
+            PowerCurve curve = new PowerCurve(exponent, 1024);
+            for (double x : inputs) {
+                assertSameBits(Math.pow(x, exponent), curve.at(x));
+            }
+            for (int i = 0; i < 1100; i++) {
+                assertSameBits(Math.pow(i, exponent), curve.at(i));
+                assertSameBits(Math.pow(i + 0.25, exponent), curve.at(i + 0.25));
+            }
+        }
+    }
+
+    @Test
+    public void sharesCurvesWithTheSameExponentAndSize() {
+        assertSame(PowerCurve.of(1.75, 32), PowerCurve.of(1.75, 32));
+        assertNotSame(PowerCurve.of(1.75, 32), PowerCurve.of(1.75, 16));
+        assertEquals(16, PowerCurve.of(1.75, 16).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizeMustNotBeNegative() {
+        new PowerCurve(1, -1);
+    }
+}
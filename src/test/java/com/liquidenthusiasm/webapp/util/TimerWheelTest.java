@@ -0,0 +1,83 @@
+package com.liquidenthusiasm.webapp.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelTest {
+    private TimerWheel<String> wheel;
+    private List<String> fired;
+
+    @Before
+    public void setUp() {
+        wheel = new TimerWheel<>();
+        fired = new ArrayList<>();
+    }
+
+    private long advanceUntilFired(String payload, long limit) {
+        for (long i = 0; i < limit; i++) {
+            wheel.advance(fired::add);
+            if (fired.contains(payload)) {
+                return wheel.getNow();
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void timersFireOnTheirDeadline() {
+        long[] deadlines = {1, 2, 63, 64, 65, 100, 4095, 4096, 4097, 300000};
+        for (long deadline : deadlines) {
+            wheel = new TimerWheel<>();
+            fired.clear();
+            wheel.schedule(new TimerWheel.Timer<>("t"), deadline);
+            assertEquals("deadline " + deadline, deadline, advanceUntilFired("t", deadline + 10));
+        }
+    }
+
+    @Test
+    public void timersFireInDeadlineOrderFromAnyStartingPoint() {
+        wheel = new TimerWheel<>(1000);
+        for (int i = 50; i > 0; i--) {
+            wheel.schedule(new TimerWheel.Timer<>("t" + i), 1000 + i * 97);
+        }
+        assertEquals(50, wheel.size());
+        while (wheel.size() > 0) {
+            wheel.advance(fired::add);
+        }
+        for (int i = 1; i <= 50; i++) {
+            assertEquals("t" + i, fired.get(i - 1));
+        }
+    }
+
+    @Test
+    public void cancelledTimersDoNotFire() {
+        TimerWheel.Timer<String> timer = new TimerWheel.Timer<>("cancelled");
+        wheel.schedule(timer, 10);
+        assertTrue(timer.isScheduled());
+        assertTrue(wheel.cancel(timer));
+        assertFalse(wheel.cancel(timer));
+        assertEquals(-1, advanceUntilFired("cancelled", 20));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void reschedulingMovesTheTimer() {
+        TimerWheel.Timer<String> timer = new TimerWheel.Timer<>("moved");
+        wheel.schedule(timer, 10);
+        wheel.schedule(timer, 200);
+        assertEquals(1, wheel.size());
+        assertEquals(200, advanceUntilFired("moved", 300));
+    }
+
+    @Test
+    public void pastDeadlinesFireOnNextTick() {
+        wheel = new TimerWheel<>(50);
+        wheel.schedule(new TimerWheel.Timer<>("late"), 3);
+        assertEquals(51, advanceUntilFired("late", 5));
+    }
+}
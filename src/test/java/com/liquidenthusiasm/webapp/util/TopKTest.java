@@ -0,0 +1,102 @@
+package com.liquidenthusiasm.webapp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class TopKTest {
+
+    private static List<Integer> items(List<TopK.Scored<Integer>> scored) {
+        return scored.stream().map(TopK.Scored::getItem).collect(Collectors.toList());
+    }
+
+    @Test
+    public void keepsTheHighestScoresBestFirst() {
+        TopK<String> top = new TopK<>(3);
+        String[] names = {"a", "b", "c", "d", "e", "f"};
+        double[] scores = {5, 1, 9, 3, 7, 2};
+        for (int i = 0; i < names.length; i++) {
+            top.offer(names[i], scores[i]);
+        }
+        List<TopK.Scored<String>> result = top.toList();
+        assertEquals(3, result.size());
+        assertEquals("c", result.get(0).getItem());
+        assertEquals(9, result.get(0).getScore(), 0);
+        assertEquals("e", result.get(1).getItem());
+        assertEquals("a", result.get(2).getItem());
+        assertEquals(5, top.threshold(), 0);
+    }
+
+    @Test
+    public void keepsEverythingWhenThereAreFewerThanK() {
+        TopK<String> top = new TopK<>(5);
+        top.offer("x", -1);
+        top.offer("y", 2);
+        assertFalse(top.isFull());
+        assertEquals(Double.NEGATIVE_INFINITY, top.threshold(), 0);
+        assertEquals(2, top.toList().size());
+        assertEquals("y", top.toList().get(0).getItem());
+    }
+
+    @Test
+    public void equalScoresKeepTheEarliestItems() {
+        TopK<Integer> top = new TopK<>(3);
+        for (int i = 0; i < 10; i++) {
+            top.offer(i, 1);
+        }
+        assertEquals(java.util.Arrays.asList(0, 1, 2), items(top.toList()));
+    }
+
+    @Test
+    public void matchesAFullSort() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 100; trial++) {
+            int k = 1 + random.nextInt(10);
+            List<Integer> values = new ArrayList<>();
+            TopK<Integer> top = new TopK<>(k);
+            for (int i = 0; i < random.nextInt(50); i++) {
+                int value = random.nextInt(20);
+                values.add(value);
+                top.offer(value, value);
+            }
+            List<Integer> expected = values.stream().sorted(Comparator.reverseOrder()).limit(k).collect(Collectors.toList());
+            assertEquals(expected, items(top.toList()));
+        }
+    }
+
+    @Test
+    public void parallelCollectorMatchesSequentialAndScoresEachItemOnce() {
+        AtomicInteger scored = new AtomicInteger();
+        Maxinator.QualityFunction<Integer> quality = (value) -> {
+            scored.incrementAndGet();
+            return value % 97;
+        };
+        List<TopK.Scored<Integer>> sequential = IntStream.range(0, 20000).boxed().collect(TopK.collector(10, quality));
+        assertEquals(20000, scored.getAndSet(0));
+        List<TopK.Scored<Integer>> parallel = IntStream.range(0, 20000).boxed().parallel().collect(TopK.collector(10, quality));
+        assertEquals(20000, scored.get());
+        assertEquals(items(sequential), items(parallel));
+        assertEquals(96, sequential.get(0).getScore(), 0);
+        assertEquals(Integer.valueOf(96), sequential.get(0).getItem());
+    }
+
+    @Test
+    public void nanScoresAreNeverKept() {
+        TopK<String> top = new TopK<>(2);
+        assertFalse(top.offer("nan", Double.NaN));
+        assertEquals(0, top.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void kMustBePositive() {
+        new TopK<String>(0);
+    }
+}